@@ -0,0 +1,170 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.yandex.practicum.filmorate.JavafilmorateApplication;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.RatingMPA;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.repository.film.FilmRepository;
+import ru.yandex.practicum.filmorate.repository.friend.FriendsRepository;
+import ru.yandex.practicum.filmorate.repository.like.LikeFilmsRepository;
+import ru.yandex.practicum.filmorate.repository.user.UserRepository;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Поднимает приложение без веб-слоя на отдельной in-memory H2 и наполняет её
+ * детерминированным набором данных заданного размера.
+ */
+public final class BenchmarkContext implements AutoCloseable {
+    private static final int BATCH_SIZE = 1_000;
+    private static final int GENRES = 6;
+    private static final int RATINGS = 5;
+
+    private final ConfigurableApplicationContext context;
+    private final int[] filmIds;
+    private final int[] userIds;
+
+    private BenchmarkContext(ConfigurableApplicationContext context, int[] filmIds, int[] userIds) {
+        this.context = context;
+        this.filmIds = filmIds;
+        this.userIds = userIds;
+    }
+
+    public static BenchmarkContext start(int films, int users, int friendsPerUser, int likesPerUser) {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(JavafilmorateApplication.class)
+                .web(WebApplicationType.NONE)
+                .logStartupInfo(false)
+                .run("--spring.datasource.url=jdbc:h2:mem:bench-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1",
+                        "--logging.level.root=warn");
+        Random random = new Random(42);
+
+        int[] userIds = seedUsers(context.getBean(UserRepository.class), users);
+        int[] filmIds = seedFilms(context.getBean(FilmRepository.class), films, random);
+        seedFriends(context.getBean(FriendsRepository.class), userIds, friendsPerUser, random);
+        seedLikes(context.getBean(LikeFilmsRepository.class), userIds, filmIds, likesPerUser, random);
+
+        return new BenchmarkContext(context, filmIds, userIds);
+    }
+
+    public <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    public <T> T getBean(String name, Class<T> type) {
+        return context.getBean(name, type);
+    }
+
+    public int randomFilmId(Random random) {
+        return filmIds[random.nextInt(filmIds.length)];
+    }
+
+    public int randomUserId(Random random) {
+        return userIds[random.nextInt(userIds.length)];
+    }
+
+    @Override
+    public void close() {
+        context.close();
+    }
+
+    private static int[] seedUsers(UserRepository repository, int count) {
+        int[] ids = new int[count];
+        for (int from = 0; from < count; from += BATCH_SIZE) {
+            List<User> batch = new ArrayList<>();
+            for (int i = from; i < Math.min(count, from + BATCH_SIZE); i++) {
+                User user = new User();
+                user.setName("User " + i);
+                user.setEmail("user" + i + "@example.com");
+                user.setLogin("user" + i);
+                user.setBirthday(LocalDate.of(1970, 1, 1).plusDays(i % 15_000));
+                batch.add(user);
+            }
+            List<User> added = repository.addAll(batch);
+            for (int i = 0; i < added.size(); i++) {
+                ids[from + i] = added.get(i).getId();
+            }
+        }
+        return ids;
+    }
+
+    private static int[] seedFilms(FilmRepository repository, int count, Random random) {
+        int[] ids = new int[count];
+        for (int from = 0; from < count; from += BATCH_SIZE) {
+            List<Film> batch = new ArrayList<>();
+            for (int i = from; i < Math.min(count, from + BATCH_SIZE); i++) {
+                Film film = new Film();
+                film.setName("Film " + i);
+                film.setDescription("Description of film " + i);
+                film.setReleaseDate(LocalDate.of(1950, 1, 1).plusDays(random.nextInt(25_000)));
+                film.setDuration(60 + random.nextInt(120));
+                film.setRate(0);
+                film.setMpa(new RatingMPA(1 + random.nextInt(RATINGS), null));
+                LinkedHashSet<Genre> genres = new LinkedHashSet<>();
+                int genreCount = random.nextInt(4);
+                for (int g = 0; g < genreCount; g++) {
+                    genres.add(new Genre(1 + random.nextInt(GENRES), null));
+                }
+                film.setGenres(genres);
+                batch.add(film);
+            }
+            List<Film> added = repository.addAll(batch);
+            for (int i = 0; i < added.size(); i++) {
+                ids[from + i] = added.get(i).getId();
+            }
+        }
+        return ids;
+    }
+
+    private static void seedFriends(FriendsRepository repository, int[] userIds, int perUser, Random random) {
+        List<int[]> batch = new ArrayList<>();
+        for (int userId : userIds) {
+            for (int friendId : distinct(userIds, Math.min(perUser, userIds.length - 1), userId, random)) {
+                batch.add(new int[]{userId, friendId});
+                if (batch.size() == BATCH_SIZE) {
+                    repository.addFriends(batch);
+                    batch = new ArrayList<>();
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            repository.addFriends(batch);
+        }
+    }
+
+    private static void seedLikes(LikeFilmsRepository repository, int[] userIds, int[] filmIds, int perUser,
+                                  Random random) {
+        List<int[]> batch = new ArrayList<>();
+        for (int userId : userIds) {
+            for (int filmId : distinct(filmIds, Math.min(perUser, filmIds.length), -1, random)) {
+                batch.add(new int[]{filmId, userId});
+                if (batch.size() == BATCH_SIZE) {
+                    repository.likeForFilms(batch);
+                    batch = new ArrayList<>();
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            repository.likeForFilms(batch);
+        }
+    }
+
+    private static int[] distinct(int[] source, int count, int excluded, Random random) {
+        LinkedHashSet<Integer> picked = new LinkedHashSet<>();
+        while (picked.size() < count) {
+            int id = source[random.nextInt(source.length)];
+            if (id != excluded) {
+                picked.add(id);
+            }
+        }
+        return picked.stream().mapToInt(Integer::intValue).toArray();
+    }
+}
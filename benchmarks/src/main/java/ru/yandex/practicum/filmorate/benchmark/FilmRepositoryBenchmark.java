@@ -0,0 +1,76 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.repository.EntityCache;
+import ru.yandex.practicum.filmorate.repository.film.FilmRepository;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FilmRepositoryBenchmark {
+    @Param({"1000", "10000"})
+    private int films;
+
+    @Param({"1000"})
+    private int users;
+
+    @Param({"10"})
+    private int likesPerUser;
+
+    private BenchmarkContext context;
+    private FilmRepository filmRepository;
+    private EntityCache<Integer, Film> filmCache;
+
+    @Setup(Level.Trial)
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        context = BenchmarkContext.start(films, users, 0, likesPerUser);
+        filmRepository = context.getBean(FilmRepository.class);
+        filmCache = context.getBean("filmCache", EntityCache.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Film> getAll() {
+        return filmRepository.getAll();
+    }
+
+    @Benchmark
+    public Film getById() {
+        return filmRepository.getById(context.randomFilmId(ThreadLocalRandom.current()));
+    }
+
+    /**
+     * Тот же путь, но мимо кэша: каждая итерация собирает фильм из базы.
+     */
+    @Benchmark
+    public Film getByIdUncached() {
+        int filmId = context.randomFilmId(ThreadLocalRandom.current());
+        filmCache.invalidate(filmId);
+        return filmRepository.getById(filmId);
+    }
+}
@@ -0,0 +1,60 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.repository.friend.FriendsRepository;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FriendsRepositoryBenchmark {
+    @Param({"1000", "10000"})
+    private int users;
+
+    @Param({"20", "200"})
+    private int friendsPerUser;
+
+    private BenchmarkContext context;
+    private FriendsRepository friendsRepository;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start(1, users, friendsPerUser, 0);
+        friendsRepository = context.getBean(FriendsRepository.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<User> getCommonFriends() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return friendsRepository.getCommonFriends(context.randomUserId(random), context.randomUserId(random));
+    }
+
+    @Benchmark
+    public List<User> getFriendsList() {
+        return friendsRepository.getFriendsList(context.randomUserId(ThreadLocalRandom.current()));
+    }
+}
@@ -0,0 +1,104 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.h2.tools.SimpleResultSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.RowMapper;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.RatingMPA;
+import ru.yandex.practicum.filmorate.repository.ModelMapper;
+import ru.yandex.practicum.filmorate.repository.ReferenceTable;
+
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Мапинг строк выборки {@code getAll} в фильмы без участия базы: строки заранее лежат в памяти,
+ * поэтому замер показывает только стоимость {@link ModelMapper#mapperGetFilms}. Рейтинги MPA и жанры,
+ * как и в приложении, берутся из справочников в памяти.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ModelMapperBenchmark {
+    private static final String[] GENRES = {"Комедия", "Драма", "Мультфильм", "Триллер", "Документальный", "Боевик"};
+
+    @Param({"1000", "10000"})
+    private int films;
+
+    @Param({"0", "3"})
+    private int genresPerFilm;
+
+    private SimpleResultSet rows;
+    private RowMapper<List<Film>> mapper;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        rows = new SimpleResultSet();
+        rows.setAutoClose(false);
+        rows.addColumn("id", Types.INTEGER, 10, 0);
+        rows.addColumn("name", Types.VARCHAR, 150, 0);
+        rows.addColumn("description", Types.VARCHAR, 600, 0);
+        rows.addColumn("release_date", Types.TIMESTAMP, 0, 0);
+        rows.addColumn("duration", Types.INTEGER, 10, 0);
+        rows.addColumn("rating", Types.INTEGER, 10, 0);
+        rows.addColumn("rating_version", Types.BIGINT, 19, 0);
+        rows.addColumn("id_ratingMPA", Types.INTEGER, 10, 0);
+        rows.addColumn("id_genre", Types.INTEGER, 10, 0);
+
+        for (int id = 1; id <= films; id++) {
+            Object[] film = {id, "Film " + id, "Description of film " + id,
+                    Timestamp.valueOf(LocalDate.of(1950, 1, 1).plusDays(random.nextInt(25_000)).atStartOfDay()),
+                    60 + random.nextInt(120), random.nextInt(100), 0L, 1};
+            if (genresPerFilm == 0) {
+                rows.addRow(row(film, null));
+            }
+            for (int g = 1; g <= genresPerFilm; g++) {
+                rows.addRow(row(film, g));
+            }
+        }
+
+        List<Genre> genres = new ArrayList<>();
+        for (int g = 1; g <= GENRES.length; g++) {
+            genres.add(new Genre(g, GENRES[g - 1]));
+        }
+        ReferenceTable<Genre> genreTable = new ReferenceTable<>(genres, Genre::getId);
+        ReferenceTable<RatingMPA> ratingTable = new ReferenceTable<>(List.of(new RatingMPA(1, "G")), RatingMPA::getId);
+        mapper = ModelMapper.mapperGetFilms(ratingTable::get, genreTable::get);
+    }
+
+    @Benchmark
+    public List<Film> mapperGetFilms() throws SQLException {
+        rows.beforeFirst();
+        rows.next();
+        return mapper.mapRow(rows, 0);
+    }
+
+    private static Object[] row(Object[] film, Integer genreId) {
+        Object[] row = new Object[film.length + 1];
+        System.arraycopy(film, 0, row, 0, film.length);
+        row[film.length] = genreId;
+        return row;
+    }
+}
@@ -0,0 +1,103 @@
+package ru.yandex.practicum.filmorate.load;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDate;
+import java.util.Random;
+
+/**
+ * Набор данных, которым наполняется свежая база перед прогоном. Данные загружаются через
+ * пакетные эндпоинты импорта, поэтому id фильмов и пользователей идут подряд с единицы.
+ */
+public class Dataset {
+    private static final int GENRES = 6;
+    private static final int RATINGS = 5;
+
+    private final URI baseUri;
+    private final int films;
+    private final int users;
+    private final int hotFilms;
+
+    public Dataset(URI baseUri, int films, int users) {
+        this.baseUri = baseUri;
+        this.films = films;
+        this.users = users;
+        this.hotFilms = Math.max(1, films / 100);
+    }
+
+    public URI uri(String path) {
+        return baseUri.resolve(path);
+    }
+
+    public int film(Random random) {
+        return 1 + random.nextInt(films);
+    }
+
+    /**
+     * Восемь запросов из десяти приходятся на один процент фильмов — так выглядит «шторм» лайков.
+     */
+    public int hotFilm(Random random) {
+        return random.nextInt(10) < 8 ? 1 + random.nextInt(hotFilms) : film(random);
+    }
+
+    public int user(Random random) {
+        return 1 + random.nextInt(users);
+    }
+
+    public void seed(HttpClient client, int friendsPerUser, int likesPerUser, long seed)
+            throws IOException, InterruptedException {
+        Random random = new Random(seed);
+
+        StringBuilder body = new StringBuilder();
+        for (int i = 1; i <= users; i++) {
+            body.append("{\"name\":\"User ").append(i)
+                    .append("\",\"email\":\"user").append(i).append("@example.com\"")
+                    .append(",\"login\":\"user").append(i)
+                    .append("\",\"birthday\":\"").append(LocalDate.of(1970, 1, 1).plusDays(i % 15_000)).append("\"}\n");
+        }
+        post("/import/users", "application/x-ndjson", body, client);
+
+        body = new StringBuilder();
+        for (int i = 1; i <= films; i++) {
+            body.append("{\"name\":\"Film ").append(i)
+                    .append("\",\"description\":\"Description of film ").append(i)
+                    .append("\",\"releaseDate\":\"").append(LocalDate.of(1950, 1, 1).plusDays(random.nextInt(25_000)))
+                    .append("\",\"duration\":").append(60 + random.nextInt(120))
+                    .append(",\"mpa\":{\"id\":").append(1 + random.nextInt(RATINGS)).append("}")
+                    .append(",\"genres\":[{\"id\":").append(1 + random.nextInt(GENRES)).append("}]}\n");
+        }
+        post("/films/bulk", "application/x-ndjson", body, client);
+
+        body = new StringBuilder();
+        for (int userId = 1; userId <= users; userId++) {
+            for (int i = 0; i < friendsPerUser; i++) {
+                body.append(userId).append(',').append(user(random)).append('\n');
+            }
+        }
+        post("/import/friends", "text/csv", body, client);
+
+        body = new StringBuilder();
+        for (int userId = 1; userId <= users; userId++) {
+            for (int i = 0; i < likesPerUser; i++) {
+                body.append(film(random)).append(',').append(userId).append('\n');
+            }
+        }
+        post("/import/likes", "text/csv", body, client);
+    }
+
+    private void post(String path, String contentType, CharSequence body, HttpClient client)
+            throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(uri(path))
+                .header("Content-Type", contentType)
+                .POST(HttpRequest.BodyPublishers.ofString(body.toString()))
+                .build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Не удалось загрузить " + path + ": " + response.statusCode()
+                    + " " + response.body());
+        }
+    }
+}
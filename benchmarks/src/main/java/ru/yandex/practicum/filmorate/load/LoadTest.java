@@ -0,0 +1,223 @@
+package ru.yandex.practicum.filmorate.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.yandex.practicum.filmorate.JavafilmorateApplication;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Генератор нагрузки с открытой моделью поступления запросов: запросы отправляются по расписанию
+ * с заданной частотой, независимо от того, успел ли сервер ответить на предыдущие.
+ *
+ * <pre>
+ * java -cp benchmarks/target/benchmarks.jar ru.yandex.practicum.filmorate.load.LoadTest \
+ *     --scenario=mixed --rate=500 --duration=60 --warmup=10 --films=10000 --users=10000
+ * </pre>
+ *
+ * С {@code --url=http://host:port} нагружается уже запущенное приложение ({@code --seed=false} пропускает наполнение),
+ * без него приложение поднимается в том же процессе на случайном порту с in-memory H2.
+ */
+public class LoadTest {
+    private static final Map<String, String> DEFAULTS = Map.of(
+            "scenario", "mixed",
+            "rate", "200",
+            "duration", "30",
+            "warmup", "5",
+            "films", "5000",
+            "users", "5000",
+            "friends-per-user", "20",
+            "likes-per-user", "10",
+            "max-in-flight", "10000",
+            "output", "load-result");
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Map<String, String> options = parse(args);
+        Scenario scenario = Scenario.valueOf(options.get("scenario").toUpperCase());
+        int rate = Integer.parseInt(options.get("rate"));
+
+        ConfigurableApplicationContext context = null;
+        URI baseUri;
+        if (options.containsKey("url")) {
+            baseUri = URI.create(options.get("url"));
+        } else {
+            context = new SpringApplicationBuilder(JavafilmorateApplication.class)
+                    .logStartupInfo(false)
+                    .run("--server.port=0",
+                            "--filmorate.reactive.port=0",
+                            "--spring.datasource.url=jdbc:h2:mem:load-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1",
+                            "--logging.level.root=warn");
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            baseUri = URI.create("http://localhost:" + port);
+        }
+
+        try {
+            HttpClient client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .connectTimeout(Duration.ofSeconds(5))
+                    .build();
+            Dataset dataset = new Dataset(baseUri, Integer.parseInt(options.get("films")),
+                    Integer.parseInt(options.get("users")));
+            if (!"false".equals(options.get("seed"))) {
+                System.out.printf("Наполнение базы: %s фильмов, %s пользователей%n",
+                        options.get("films"), options.get("users"));
+                dataset.seed(client, Integer.parseInt(options.get("friends-per-user")),
+                        Integer.parseInt(options.get("likes-per-user")), 42);
+            }
+
+            Map<Operation, OperationStats> stats = new LinkedHashMap<>();
+            scenario.getOperations().forEach(operation -> stats.put(operation, new OperationStats(operation.getName())));
+
+            long warmupNanos = TimeUnit.SECONDS.toNanos(Long.parseLong(options.get("warmup")));
+            long durationNanos = TimeUnit.SECONDS.toNanos(Long.parseLong(options.get("duration")));
+            System.out.printf("Сценарий %s: %d запросов/с, прогрев %s с, замер %s с%n",
+                    scenario, rate, options.get("warmup"), options.get("duration"));
+            run(client, dataset, scenario, stats, rate, warmupNanos, durationNanos,
+                    Integer.parseInt(options.get("max-in-flight")));
+
+            report(stats, durationNanos, options.get("output"));
+        } finally {
+            if (context != null) {
+                context.close();
+            }
+        }
+    }
+
+    private static void run(HttpClient client, Dataset dataset, Scenario scenario, Map<Operation, OperationStats> stats,
+                            int rate, long warmupNanos, long durationNanos, int maxInFlight) throws InterruptedException {
+        Random random = new Random(7);
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+        long start = System.nanoTime();
+        long measureFrom = start + warmupNanos;
+        long end = measureFrom + durationNanos;
+        boolean measuring = false;
+
+        for (long i = 0; ; i++) {
+            long intendedStart = start + i * intervalNanos;
+            if (intendedStart >= end) {
+                break;
+            }
+            if (!measuring && intendedStart >= measureFrom) {
+                measuring = true;
+                stats.values().forEach(OperationStats::reset);
+            }
+            long wait = intendedStart - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+
+            Operation operation = scenario.pick(random);
+            HttpRequest request = operation.request(dataset, random);
+            OperationStats operationStats = stats.get(operation);
+            // Если сервер не успевает, генератор ждёт здесь, но задержка всё равно считается от intendedStart
+            inFlight.acquire();
+            client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, error) -> {
+                        inFlight.release();
+                        operationStats.record(intendedStart, response, error);
+                    });
+        }
+
+        if (!inFlight.tryAcquire(maxInFlight, 1, TimeUnit.MINUTES)) {
+            System.out.println("Не все запросы завершились за минуту после окончания прогона");
+        }
+    }
+
+    private static void report(Map<Operation, OperationStats> stats, long durationNanos, String output)
+            throws IOException {
+        double seconds = durationNanos / 1e9;
+        Histogram total = null;
+        long totalErrors = 0;
+        long totalFailures = 0;
+        Map<String, Object> result = new LinkedHashMap<>();
+        List<Map<String, Object>> operations = new ArrayList<>();
+
+        System.out.printf("%n%-42s %9s %8s %8s %9s %9s %9s %9s%n",
+                "операция", "запросов", "4xx/5xx", "сбоев", "p50, мс", "p99, мс", "p99.9, мс", "max, мс");
+        for (OperationStats operationStats : stats.values()) {
+            Histogram histogram = operationStats.snapshot();
+            if (total == null) {
+                total = histogram.copy();
+            } else {
+                total.add(histogram);
+            }
+            totalErrors += operationStats.getErrors();
+            totalFailures += operationStats.getFailures();
+            print(operationStats.getName(), histogram, operationStats.getErrors(), operationStats.getFailures());
+            operations.add(summary(operationStats.getName(), histogram, operationStats.getErrors(),
+                    operationStats.getFailures(), seconds));
+        }
+        if (total == null) {
+            return;
+        }
+        print("всего", total, totalErrors, totalFailures);
+        System.out.printf("Фактическая пропускная способность: %.1f запросов/с%n", total.getTotalCount() / seconds);
+
+        result.put("total", summary("total", total, totalErrors, totalFailures, seconds));
+        result.put("operations", operations);
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(new File(output + ".json"), result);
+        try (PrintStream percentiles = new PrintStream(new File(output + ".hgrm"))) {
+            total.outputPercentileDistribution(percentiles, 1000.0);
+        }
+        System.out.printf("Результаты записаны в %s.json и %s.hgrm%n", output, output);
+    }
+
+    private static void print(String name, Histogram histogram, long errors, long failures) {
+        System.out.printf("%-42s %9d %8d %8d %9.2f %9.2f %9.2f %9.2f%n", name, histogram.getTotalCount(), errors,
+                failures, millis(histogram, 50), millis(histogram, 99), millis(histogram, 99.9),
+                histogram.getMaxValue() / 1000.0);
+    }
+
+    private static Map<String, Object> summary(String name, Histogram histogram, long errors, long failures,
+                                               double seconds) {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("name", name);
+        summary.put("count", histogram.getTotalCount());
+        summary.put("errors", errors);
+        summary.put("failures", failures);
+        summary.put("throughput", histogram.getTotalCount() / seconds);
+        summary.put("p50Ms", millis(histogram, 50));
+        summary.put("p99Ms", millis(histogram, 99));
+        summary.put("p999Ms", millis(histogram, 99.9));
+        summary.put("maxMs", histogram.getMaxValue() / 1000.0);
+        return summary;
+    }
+
+    private static double millis(Histogram histogram, double percentile) {
+        return histogram.getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>(DEFAULTS);
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Ожидается аргумент вида --ключ=значение: " + arg);
+            }
+            int separator = arg.indexOf('=');
+            options.put(arg.substring(2, separator), arg.substring(separator + 1));
+        }
+        return options;
+    }
+}
@@ -0,0 +1,26 @@
+package ru.yandex.practicum.filmorate.load;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.net.http.HttpRequest;
+import java.util.Random;
+
+@Getter
+@RequiredArgsConstructor
+public class Operation {
+    private final String name;
+
+    private final int weight;
+
+    private final RequestFactory factory;
+
+    public HttpRequest request(Dataset dataset, Random random) {
+        return factory.create(dataset, random);
+    }
+
+    @FunctionalInterface
+    public interface RequestFactory {
+        HttpRequest create(Dataset dataset, Random random);
+    }
+}
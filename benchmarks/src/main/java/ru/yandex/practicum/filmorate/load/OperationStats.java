@@ -0,0 +1,62 @@
+package ru.yandex.practicum.filmorate.load;
+
+import lombok.Getter;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.net.http.HttpResponse;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Задержки одной операции. Задержка отсчитывается от запланированного момента отправки,
+ * а не от фактического, поэтому отставание генератора попадает в гистограмму
+ * (поправка на coordinated omission).
+ */
+public class OperationStats {
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+    @Getter
+    private final String name;
+
+    private final Recorder recorder = new Recorder(HIGHEST_TRACKABLE_MICROS, 3);
+
+    private final LongAdder errors = new LongAdder();
+
+    private final LongAdder failures = new LongAdder();
+
+    public OperationStats(String name) {
+        this.name = name;
+    }
+
+    public void record(long intendedStartNanos, HttpResponse<?> response, Throwable error) {
+        long latencyMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - intendedStartNanos);
+        recorder.recordValue(Math.min(latencyMicros, HIGHEST_TRACKABLE_MICROS));
+        if (error != null) {
+            failures.increment();
+        } else if (response.statusCode() >= 400) {
+            errors.increment();
+        }
+    }
+
+    /**
+     * Сбрасывает накопленное, например после прогрева.
+     */
+    public void reset() {
+        recorder.reset();
+        errors.reset();
+        failures.reset();
+    }
+
+    public Histogram snapshot() {
+        return recorder.getIntervalHistogram();
+    }
+
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    public long getFailures() {
+        return failures.sum();
+    }
+}
@@ -0,0 +1,83 @@
+package ru.yandex.practicum.filmorate.load;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Сценарии нагрузки: каждый — взвешенный набор операций над реальными эндпоинтами
+ * {@code FilmController} и {@code UserController}.
+ */
+public enum Scenario {
+    LIKES(List.of(
+            new Operation("PUT /films/{id}/like/{userId}", 8, (ctx, r) ->
+                    put(ctx.uri("/films/" + ctx.hotFilm(r) + "/like/" + ctx.user(r)))),
+            new Operation("DELETE /films/{id}/like/{userId}", 2, (ctx, r) ->
+                    delete(ctx.uri("/films/" + ctx.hotFilm(r) + "/like/" + ctx.user(r)))))),
+
+    POPULAR(List.of(
+            new Operation("GET /films/popular", 6, (ctx, r) ->
+                    get(ctx.uri("/films/popular?count=10"))),
+            new Operation("GET /films/popular?genreId", 3, (ctx, r) ->
+                    get(ctx.uri("/films/popular?count=10&genreId=" + (1 + r.nextInt(6))))),
+            new Operation("GET /films/{id}", 1, (ctx, r) ->
+                    get(ctx.uri("/films/" + ctx.film(r)))))),
+
+    FRIENDS(List.of(
+            new Operation("PUT /users/{id}/friends/{friendId}", 4, (ctx, r) ->
+                    put(ctx.uri("/users/" + ctx.user(r) + "/friends/" + ctx.user(r)))),
+            new Operation("DELETE /users/{id}/friends/{friendId}", 2, (ctx, r) ->
+                    delete(ctx.uri("/users/" + ctx.user(r) + "/friends/" + ctx.user(r)))),
+            new Operation("GET /users/{id}/friends", 2, (ctx, r) ->
+                    get(ctx.uri("/users/" + ctx.user(r) + "/friends"))),
+            new Operation("GET /users/{id}/friends/common/{otherId}", 2, (ctx, r) ->
+                    get(ctx.uri("/users/" + ctx.user(r) + "/friends/common/" + ctx.user(r)))))),
+
+    MIXED(List.of(
+            new Operation("GET /films/popular", 40, (ctx, r) ->
+                    get(ctx.uri("/films/popular?count=10"))),
+            new Operation("GET /films/{id}", 25, (ctx, r) ->
+                    get(ctx.uri("/films/" + ctx.film(r)))),
+            new Operation("PUT /films/{id}/like/{userId}", 15, (ctx, r) ->
+                    put(ctx.uri("/films/" + ctx.hotFilm(r) + "/like/" + ctx.user(r)))),
+            new Operation("GET /users/{id}/friends", 10, (ctx, r) ->
+                    get(ctx.uri("/users/" + ctx.user(r) + "/friends"))),
+            new Operation("PUT /users/{id}/friends/{friendId}", 10, (ctx, r) ->
+                    put(ctx.uri("/users/" + ctx.user(r) + "/friends/" + ctx.user(r))))));
+
+    private final List<Operation> operations;
+    private final int totalWeight;
+
+    Scenario(List<Operation> operations) {
+        this.operations = operations;
+        this.totalWeight = operations.stream().mapToInt(Operation::getWeight).sum();
+    }
+
+    public List<Operation> getOperations() {
+        return operations;
+    }
+
+    public Operation pick(Random random) {
+        int point = random.nextInt(totalWeight);
+        for (Operation operation : operations) {
+            point -= operation.getWeight();
+            if (point < 0) {
+                return operation;
+            }
+        }
+        return operations.get(operations.size() - 1);
+    }
+
+    private static HttpRequest get(URI uri) {
+        return HttpRequest.newBuilder(uri).GET().build();
+    }
+
+    private static HttpRequest put(URI uri) {
+        return HttpRequest.newBuilder(uri).PUT(HttpRequest.BodyPublishers.noBody()).build();
+    }
+
+    private static HttpRequest delete(URI uri) {
+        return HttpRequest.newBuilder(uri).DELETE().build();
+    }
+}
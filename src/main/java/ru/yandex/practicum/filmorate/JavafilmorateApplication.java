@@ -3,10 +3,12 @@ package ru.yandex.practicum.filmorate;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.ComponentScan;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 
 @ComponentScan(basePackages = "ru.yandex.practicum.filmorate")
 @SpringBootApplication
+@EnableScheduling
 public class JavafilmorateApplication {
 
     public static void main(String[] args) {
@@ -0,0 +1,28 @@
+package ru.yandex.practicum.filmorate.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.repository.EntityCache;
+
+import java.util.LinkedHashSet;
+
+@Configuration
+public class CacheConfig {
+
+    @Bean
+    public EntityCache<Integer, Film> filmCache(@Value("${filmorate.films.cache.max-size:10000}") int maxSize,
+                                                @Value("${filmorate.films.cache.ttl-ms:300000}") long ttlMillis) {
+        return new EntityCache<>(maxSize, ttlMillis, film -> film.toBuilder()
+                .genres(film.getGenres() != null ? new LinkedHashSet<>(film.getGenres()) : null)
+                .build());
+    }
+
+    @Bean
+    public EntityCache<Integer, User> userCache(@Value("${filmorate.users.cache.max-size:50000}") int maxSize,
+                                                @Value("${filmorate.users.cache.ttl-ms:300000}") long ttlMillis) {
+        return new EntityCache<>(maxSize, ttlMillis, user -> user.toBuilder().build());
+    }
+}
@@ -0,0 +1,87 @@
+package ru.yandex.practicum.filmorate.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import ru.yandex.practicum.filmorate.datasource.ReadWriteRoutingDataSource;
+import ru.yandex.practicum.filmorate.datasource.ReadYourWritesFilter;
+
+import javax.sql.DataSource;
+import java.time.Clock;
+
+/**
+ * Включается, когда задан {@code filmorate.datasource.replica.url}. Основной пул настраивается как обычно через
+ * {@code spring.datasource.*}, пул реплики — через {@code filmorate.datasource.replica.*}.
+ */
+@Configuration
+@ConditionalOnProperty("filmorate.datasource.replica.url")
+public class DataSourceRoutingConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    @ConfigurationProperties("filmorate.datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(DataSourceProperties properties,
+                                              @Value("${filmorate.datasource.replica.url}") String url,
+                                              @Value("${filmorate.datasource.replica.username:${spring.datasource.username:}}") String username,
+                                              @Value("${filmorate.datasource.replica.password:${spring.datasource.password:}}") String password) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(url);
+        dataSource.setUsername(username);
+        dataSource.setPassword(password);
+        dataSource.setDriverClassName(properties.determineDriverClassName());
+        dataSource.setReadOnly(true);
+        dataSource.setPoolName("replica");
+        return dataSource;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReadWriteRoutingDataSource routingDataSource) {
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+
+    @Bean
+    public ReadWriteRoutingDataSource routingDataSource(@Qualifier("primaryDataSource") DataSource primary,
+                                                        @Qualifier("replicaDataSource") DataSource replica,
+                                                        @Value("${filmorate.datasource.replica.lag-ms:1000}") long lagMillis,
+                                                        @Value("${filmorate.datasource.replica.read-your-writes:true}") boolean readYourWrites,
+                                                        ObjectProvider<Clock> clock) {
+        return new ReadWriteRoutingDataSource(primary, replica, lagMillis, readYourWrites,
+                clock.getIfAvailable(Clock::systemUTC));
+    }
+
+    @Bean
+    @ConditionalOnProperty(value = "filmorate.datasource.replica.read-your-writes", matchIfMissing = true)
+    public ReadYourWritesFilter readYourWritesFilter(@Value("${filmorate.datasource.replica.lag-ms:1000}") long lagMillis) {
+        return new ReadYourWritesFilter(lagMillis);
+    }
+
+    @Bean
+    public MeterBinder dataSourceRouteMetrics(ReadWriteRoutingDataSource routingDataSource) {
+        return registry -> {
+            for (ReadWriteRoutingDataSource.Route route : ReadWriteRoutingDataSource.Route.values()) {
+                FunctionCounter.builder("filmorate.datasource.routes", routingDataSource, r -> r.getRouteCount(route))
+                        .description("Количество соединений, выданных основной базе и реплике")
+                        .tag("target", route.name().toLowerCase())
+                        .register(registry);
+            }
+        };
+    }
+}
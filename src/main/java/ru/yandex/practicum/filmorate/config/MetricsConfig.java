@@ -0,0 +1,28 @@
+package ru.yandex.practicum.filmorate.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ru.yandex.practicum.filmorate.metrics.MeteredDataSource;
+
+import javax.sql.DataSource;
+
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public static BeanPostProcessor meteredDataSourcePostProcessor(ObjectProvider<MeterRegistry> registry) {
+        // Оборачивается только основной бин: пулы под маршрутизатором реплик мерить повторно не нужно
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if ("dataSource".equals(beanName) && bean instanceof DataSource && !(bean instanceof MeteredDataSource)) {
+                    return new MeteredDataSource((DataSource) bean, registry);
+                }
+                return bean;
+            }
+        };
+    }
+}
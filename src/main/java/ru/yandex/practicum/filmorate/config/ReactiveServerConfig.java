@@ -0,0 +1,118 @@
+package ru.yandex.practicum.filmorate.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.context.ServletWebServerInitializedEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.server.reactive.ReactorHttpHandlerAdapter;
+import org.springframework.web.reactive.function.server.HandlerStrategies;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import ru.yandex.practicum.filmorate.controller.ReactiveFilmHandler;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.ErrorDto;
+
+import static org.springframework.web.reactive.function.server.RequestPredicates.accept;
+
+/**
+ * Приложение работает на Spring MVC, а {@code /v2/films} обслуживает отдельный неблокирующий сервер
+ * Reactor Netty на своём порту. Запись в сокет идёт по готовности канала на нескольких потоках event loop,
+ * поэтому тысячи медленных клиентов держат соединения, но не потоки, и не мешают друг другу.
+ * Сервер поднимается вместе со встроенным сервлетным сервером, в тестах без него маршруты вызываются напрямую.
+ */
+@Slf4j
+@Configuration
+public class ReactiveServerConfig implements ApplicationListener<ServletWebServerInitializedEvent>, DisposableBean {
+    private final String host;
+
+    private final int port;
+
+    private final ObjectMapper objectMapper;
+
+    private final ReactiveFilmHandler filmHandler;
+
+    private volatile DisposableServer server;
+
+    public ReactiveServerConfig(@Value("${filmorate.reactive.host:0.0.0.0}") String host,
+                                @Value("${filmorate.reactive.port:8081}") int port,
+                                ObjectMapper objectMapper,
+                                ReactiveFilmHandler filmHandler) {
+        this.host = host;
+        this.port = port;
+        this.objectMapper = objectMapper;
+        this.filmHandler = filmHandler;
+    }
+
+    @Bean
+    public RouterFunction<ServerResponse> reactiveFilmRoutes() {
+        return RouterFunctions.route()
+                .GET("/v2/films", accept(MediaType.APPLICATION_JSON), filmHandler::getFilmsPage)
+                .GET("/v2/films", accept(MediaType.APPLICATION_NDJSON), filmHandler::streamFilms)
+                .GET("/v2/films", accept(MediaType.TEXT_EVENT_STREAM), filmHandler::streamFilmEvents)
+                .GET("/v2/films/{id}", filmHandler::getFilmById)
+                .onError(NotFoundException.class, (e, request) -> error(HttpStatus.NOT_FOUND, "Объект не найден"))
+                .onError(ValidationException.class, (e, request) -> error(HttpStatus.BAD_REQUEST, e.getMessage()))
+                .build();
+    }
+
+    @Bean
+    public HandlerStrategies reactiveHandlerStrategies() {
+        return HandlerStrategies.builder()
+                .codecs(codecs -> {
+                    codecs.defaultCodecs().jackson2JsonEncoder(new Jackson2JsonEncoder(objectMapper));
+                    codecs.defaultCodecs().jackson2JsonDecoder(new Jackson2JsonDecoder(objectMapper));
+                })
+                .build();
+    }
+
+    @Override
+    public synchronized void onApplicationEvent(ServletWebServerInitializedEvent event) {
+        // Сервер управления actuator на отдельном порту публикует то же событие из дочернего контекста
+        if (server != null || event.getApplicationContext().getServerNamespace() != null) {
+            return;
+        }
+        server = HttpServer.create()
+                .host(host)
+                .port(port)
+                .handle(new ReactorHttpHandlerAdapter(
+                        RouterFunctions.toHttpHandler(reactiveFilmRoutes(), reactiveHandlerStrategies())))
+                .bindNow();
+        log.info("Неблокирующий сервер /v2/films запущен на порту {}", server.port());
+    }
+
+    public int getPort() {
+        DisposableServer current = server;
+        return current != null ? current.port() : -1;
+    }
+
+    @Override
+    public void destroy() {
+        DisposableServer current = server;
+        if (current != null) {
+            current.disposeNow();
+        }
+    }
+
+    private static Mono<ServerResponse> error(HttpStatus status, String message) {
+        log.error("Ошибка запроса к /v2/films: {}", message);
+        return ServerResponse.status(status)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(ErrorDto.builder()
+                        .code(status.value())
+                        .message(message)
+                        .build());
+    }
+}
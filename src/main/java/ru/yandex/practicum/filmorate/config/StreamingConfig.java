@@ -0,0 +1,46 @@
+package ru.yandex.practicum.filmorate.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import ru.yandex.practicum.filmorate.metrics.SqlRequestStats;
+
+/**
+ * Пул асинхронной обработки Spring MVC. В нём выполняется выгрузка {@code /films/stream}: она пишет ответ
+ * блокирующей записью сервлета и занимает поток до конца выгрузки, поэтому одновременно идёт не больше
+ * {@code threads} выгрузок, а остальные ждут в очереди. {@code /v2/films} сюда не попадает, его обслуживает
+ * неблокирующий сервер из {@link ReactiveServerConfig}. Задачи пула переносят счётчики SQL запроса, чтобы запросы
+ * выгрузки попадали в метрики и бюджет {@code /films/stream}.
+ */
+@Configuration
+public class StreamingConfig implements WebMvcConfigurer {
+    private final int threads;
+
+    private final int queueCapacity;
+
+    public StreamingConfig(@Value("${filmorate.streaming.threads:32}") int threads,
+                           @Value("${filmorate.streaming.queue-capacity:100}") int queueCapacity) {
+        this.threads = threads;
+        this.queueCapacity = queueCapacity;
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor streamingTaskExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("films-export-");
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.setTaskDecorator(SqlRequestStats::propagate);
+        return executor;
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(streamingTaskExecutor());
+    }
+}
@@ -1,7 +1,12 @@
 package ru.yandex.practicum.filmorate.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -11,10 +16,19 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.yandex.practicum.filmorate.model.CacheStats;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmPage;
+import ru.yandex.practicum.filmorate.model.ImportReport;
+import ru.yandex.practicum.filmorate.model.LikeQueueStats;
 import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.ImportService;
 
 import javax.validation.Valid;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
 
 @Slf4j
@@ -22,20 +36,63 @@ import java.util.List;
 @RestController
 @RequestMapping("/films")
 public class FilmController {
+    static final String LIKE_SEQUENCE_HEADER = "X-Like-Sequence";
+
     private final FilmService filmService;
 
+    private final ImportService importService;
+
+    private final ObjectMapper objectMapper;
+
     @PostMapping()
     public Film addFilm(@Valid @RequestBody Film film) {
         log.debug("Поступил запрос на добавление фильма: {}", film.getName());
         return filmService.addFilm(film);
     }
 
+    @PostMapping(value = "/bulk", consumes = {"application/x-ndjson", MediaType.TEXT_PLAIN_VALUE})
+    public ImportReport importFilms(InputStream body) {
+        log.debug("Поступил запрос на пакетный импорт фильмов.");
+        return importService.importFilms(body);
+    }
+
     @GetMapping()
     public List<Film> getAllFilms() {
         log.debug("Поступил запрос на просмотр всех фильмов.");
         return filmService.getAllFilms();
     }
 
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_JSON_VALUE)
+    public StreamingResponseBody streamAllFilms() {
+        log.debug("Поступил запрос на потоковую выгрузку всех фильмов.");
+        return outputStream -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                generator.writeStartArray();
+                filmService.streamAllFilms(film -> {
+                    try {
+                        generator.writeObject(film);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                generator.writeEndArray();
+            }
+        };
+    }
+
+    @GetMapping(params = "limit")
+    public FilmPage getFilmsPage(@RequestParam(value = "after", required = false) Integer afterId,
+                                 @RequestParam(value = "limit") int limit) {
+        log.debug("Поступил запрос на просмотр страницы фильмов после id {} (размер: {}).", afterId, limit);
+        return filmService.getFilmsPage(afterId, limit);
+    }
+
+    @GetMapping(params = "ids")
+    public List<Film> getFilmsByIds(@RequestParam("ids") List<Integer> filmIds) {
+        log.debug("Поступил запрос на просмотр фильмов с id {}.", filmIds);
+        return filmService.getFilmsByIds(filmIds);
+    }
+
     @GetMapping("/{id}")
     public Film getFilmById(@PathVariable("id") Integer filmId) {
         log.debug("Поступил запрос на просмотр фильма с id {}.", filmId);
@@ -49,21 +106,64 @@ public class FilmController {
     }
 
     @PutMapping("/{id}/like/{userId}")
-    public void likeFilm(@PathVariable("id") Integer filmId, @PathVariable("userId") Integer userId) {
+    public ResponseEntity<Void> likeFilm(@PathVariable("id") Integer filmId, @PathVariable("userId") Integer userId) {
         log.debug("Поступил запрос на лайк фильма с id {} от пользователя с id {}.", filmId, userId);
+        if (filmService.isAsyncLikes()) {
+            return accepted(filmService.submitLike(filmId, userId));
+        }
         filmService.likeFilm(filmId, userId);
+        return ResponseEntity.ok().build();
     }
 
     @DeleteMapping("/{id}/like/{userId}")
-    public void unlikeFilm(@PathVariable("id") Integer filmId, @PathVariable("userId") Integer userId) {
+    public ResponseEntity<Void> unlikeFilm(@PathVariable("id") Integer filmId,
+                                           @PathVariable("userId") Integer userId) {
         log.debug("Поступил запрос на удаление лайка у фильма с id {} от пользователя с id {}.", filmId, userId);
+        if (filmService.isAsyncLikes()) {
+            return accepted(filmService.submitUnlike(filmId, userId));
+        }
         filmService.unlikeFilm(filmId, userId);
+        return ResponseEntity.ok().build();
+    }
+
+    @PostMapping("/likes/flush")
+    public ResponseEntity<LikeQueueStats> flushLikes(@RequestParam(value = "from", defaultValue = "0") long from,
+                                                     @RequestParam(value = "sequence", defaultValue = "0") long sequence,
+                                                     @RequestParam(value = "timeoutMs", defaultValue = "5000")
+                                                     long timeoutMs) {
+        log.debug("Поступил запрос на подтверждение записи лайков с {} до {}.", from, sequence);
+        LikeQueueStats stats = filmService.flushLikes(from, sequence, timeoutMs);
+        if (stats.isComplete()) {
+            return ResponseEntity.ok(stats);
+        }
+        if (stats.isFailedInRange()) {
+            // Ждать бесполезно: часть событий уже обработана с ошибкой
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(stats);
+        }
+        return ResponseEntity.accepted().body(stats);
     }
 
     @GetMapping("/popular")
-    public List<Film> getPopularFilms(@RequestParam(value = "count", defaultValue = "10") int limit) {
-        log.debug("Поступил запрос на просмотр популярных фильмов (ограничение: {}).", limit);
-        return filmService.getPopularFilms(limit);
+    public List<Film> getPopularFilms(@RequestParam(value = "count", defaultValue = "10") int limit,
+                                      @RequestParam(value = "genreId", required = false) Integer genreId,
+                                      @RequestParam(value = "year", required = false) Integer year) {
+        log.debug("Поступил запрос на просмотр популярных фильмов (ограничение: {}, жанр: {}, год: {}).",
+                limit, genreId, year);
+        return filmService.getPopularFilms(limit, genreId, year);
+    }
+
+    @GetMapping("/search")
+    public FilmPage searchFilms(@RequestParam("q") String query,
+                                @RequestParam(value = "offset", defaultValue = "0") int offset,
+                                @RequestParam(value = "limit", defaultValue = "20") int limit) {
+        log.debug("Поступил запрос на поиск фильмов: {}.", query);
+        return filmService.searchFilms(query, offset, limit);
+    }
+
+    @GetMapping("/cache/stats")
+    public CacheStats getCacheStats() {
+        log.debug("Поступил запрос на статистику кэша фильмов.");
+        return filmService.getCacheStats();
     }
 
     @PutMapping()
@@ -71,4 +171,8 @@ public class FilmController {
         log.debug("Поступил запрос на обновление информации о фильме с id {}.", updatedFilm.getId());
         return filmService.updateFilm(updatedFilm);
     }
+
+    private static ResponseEntity<Void> accepted(long sequence) {
+        return ResponseEntity.accepted().header(LIKE_SEQUENCE_HEADER, Long.toString(sequence)).build();
+    }
 }
@@ -0,0 +1,38 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import ru.yandex.practicum.filmorate.model.ImportReport;
+import ru.yandex.practicum.filmorate.service.ImportService;
+
+import java.io.InputStream;
+
+@Slf4j
+@AllArgsConstructor
+@RestController
+@RequestMapping("/import")
+public class ImportController {
+    private final ImportService importService;
+
+    @PostMapping(value = "/users", consumes = {"application/x-ndjson", MediaType.TEXT_PLAIN_VALUE})
+    public ImportReport importUsers(InputStream body) {
+        log.debug("Поступил запрос на пакетный импорт пользователей.");
+        return importService.importUsers(body);
+    }
+
+    @PostMapping(value = "/friends", consumes = {"text/csv", MediaType.TEXT_PLAIN_VALUE})
+    public ImportReport importFriends(InputStream body) {
+        log.debug("Поступил запрос на пакетный импорт дружеских связей.");
+        return importService.importFriends(body);
+    }
+
+    @PostMapping(value = "/likes", consumes = {"text/csv", MediaType.TEXT_PLAIN_VALUE})
+    public ImportReport importLikes(InputStream body) {
+        log.debug("Поступил запрос на пакетный импорт лайков.");
+        return importService.importLikes(body);
+    }
+}
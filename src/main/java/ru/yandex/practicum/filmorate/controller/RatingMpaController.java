@@ -4,6 +4,7 @@ import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import ru.yandex.practicum.filmorate.model.RatingMPA;
@@ -30,4 +31,10 @@ public class RatingMpaController {
         log.debug("Поступил запрос на просмотр рейтинга с id {}.", id);
         return ratingMpaService.getById(id);
     }
+
+    @PostMapping("/reload")
+    public List<RatingMPA> reload() {
+        log.debug("Поступил запрос на перечитывание справочника рейтингов.");
+        return ratingMpaService.reload();
+    }
 }
@@ -0,0 +1,80 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.service.FilmService;
+
+/**
+ * Обработчики {@code /v2/films} для неблокирующего сервера из
+ * {@link ru.yandex.practicum.filmorate.config.ReactiveServerConfig}. В потоковых ответах следующий фильм
+ * запрашивается из базы только тогда, когда предыдущий ушёл в сокет, поэтому медленный клиент держит
+ * открытое соединение, но не поток.
+ */
+@Slf4j
+@Component
+@AllArgsConstructor
+public class ReactiveFilmHandler {
+    private final FilmService filmService;
+
+    public Mono<ServerResponse> streamFilms(ServerRequest request) {
+        return stream(request, MediaType.APPLICATION_NDJSON);
+    }
+
+    public Mono<ServerResponse> streamFilmEvents(ServerRequest request) {
+        return stream(request, MediaType.TEXT_EVENT_STREAM);
+    }
+
+    /**
+     * Обычный JSON-массив кодировщик собирает целиком в памяти, поэтому здесь отдаётся не больше одной страницы.
+     */
+    public Mono<ServerResponse> getFilmsPage(ServerRequest request) {
+        return Mono.defer(() -> {
+            Integer afterId = intParam(request, "after");
+            Integer limit = intParam(request, "limit");
+            log.debug("Поступил запрос на неблокирующую страницу фильмов (после id {}, размер: {}).", afterId, limit);
+            return filmService.findFilmsPage(afterId, limit)
+                    .flatMap(films -> ServerResponse.ok().contentType(MediaType.APPLICATION_JSON).bodyValue(films));
+        });
+    }
+
+    public Mono<ServerResponse> getFilmById(ServerRequest request) {
+        return Mono.defer(() -> {
+            Integer filmId = parseInt(request.pathVariable("id"), "id");
+            log.debug("Поступил запрос на неблокирующий просмотр фильма с id {}.", filmId);
+            return filmService.findFilmById(filmId)
+                    .flatMap(film -> ServerResponse.ok().contentType(MediaType.APPLICATION_JSON).bodyValue(film));
+        });
+    }
+
+    private Mono<ServerResponse> stream(ServerRequest request, MediaType mediaType) {
+        return Mono.defer(() -> {
+            Integer afterId = intParam(request, "after");
+            Integer limit = intParam(request, "limit");
+            log.debug("Поступил запрос на неблокирующую выгрузку фильмов (после id {}, ограничение: {}).", afterId, limit);
+            return ServerResponse.ok()
+                    .contentType(mediaType)
+                    .body(filmService.streamFilms(afterId, limit), Film.class);
+        });
+    }
+
+    private static Integer intParam(ServerRequest request, String name) {
+        return request.queryParam(name)
+                .map(value -> parseInt(value, name))
+                .orElse(null);
+    }
+
+    private static Integer parseInt(String value, String name) {
+        try {
+            return Integer.valueOf(value);
+        } catch (NumberFormatException e) {
+            throw new ValidationException("Параметр " + name + " должен быть целым числом");
+        }
+    }
+}
@@ -9,8 +9,11 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmService;
 import ru.yandex.practicum.filmorate.service.UserService;
 
 import javax.validation.Valid;
@@ -23,6 +26,8 @@ import java.util.List;
 public class UserController {
     private final UserService userService;
 
+    private final FilmService filmService;
+
     @PostMapping()
     public User addUser(@Valid @RequestBody User user) {
         log.debug("Поступил запрос на добавление пользователя с id {}.", user.getId());
@@ -65,6 +70,20 @@ public class UserController {
         return userService.getCommonFriends(userId, otherUserId);
     }
 
+    @GetMapping("/{id}/friends/suggestions")
+    public List<User> getFriendSuggestions(@PathVariable("id") Integer userId,
+                                           @RequestParam(value = "limit", defaultValue = "10") int limit) {
+        log.debug("Поступил запрос на рекомендации друзей для пользователя с id {}.", userId);
+        return userService.getFriendSuggestions(userId, limit);
+    }
+
+    @GetMapping("/{id}/recommendations")
+    public List<Film> getRecommendations(@PathVariable("id") Integer userId,
+                                         @RequestParam(value = "limit", defaultValue = "10") int limit) {
+        log.debug("Поступил запрос на рекомендации фильмов для пользователя с id {}.", userId);
+        return filmService.getRecommendations(userId, limit);
+    }
+
     @PutMapping("/{id}/friends/{friendId}")
     public void addFriend(@PathVariable("id") Integer userId, @PathVariable("friendId") Integer friendId) {
         log.debug("Поступил запрос на добавление друга для пользователя с id {}.", userId);
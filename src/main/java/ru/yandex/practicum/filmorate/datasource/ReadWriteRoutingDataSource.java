@@ -0,0 +1,126 @@
+package ru.yandex.practicum.filmorate.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.yandex.practicum.filmorate.repository.TransactionHooks;
+
+import javax.sql.DataSource;
+import java.time.Clock;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
+
+/**
+ * Направляет транзакции {@code readOnly = true} в реплику, всё остальное — в основную базу.
+ * <p>
+ * Решение принимается при получении соединения, поэтому источник должен быть обёрнут в
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}: иначе соединение берётся
+ * в начале транзакции, до того как становится известен её признак только для чтения.
+ * <p>
+ * Чтение своих записей отслеживается для каждого клиента отдельно: {@link ReadYourWritesFilter} привязывает
+ * к потоку запроса {@link Session} с моментом последней записи этого клиента, и только его чтения
+ * в течение {@code replicaLag} после фиксации идут в основную базу. Чтения других клиентов и фоновых задач
+ * по-прежнему идут в реплику.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    public enum Route {
+        PRIMARY,
+        REPLICA
+    }
+
+    private static final ThreadLocal<Session> SESSION = new ThreadLocal<>();
+
+    private final long replicaLagMillis;
+
+    private final boolean readYourWrites;
+
+    private final Clock clock;
+
+    private final AtomicLong primaryRoutes = new AtomicLong();
+
+    private final AtomicLong replicaRoutes = new AtomicLong();
+
+    public ReadWriteRoutingDataSource(DataSource primary, DataSource replica, long replicaLagMillis,
+                                      boolean readYourWrites, Clock clock) {
+        this.replicaLagMillis = replicaLagMillis;
+        this.readYourWrites = readYourWrites;
+        this.clock = clock;
+        setTargetDataSources(Map.of(Route.PRIMARY, primary, Route.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+    }
+
+    public static void bindSession(Session session) {
+        SESSION.set(session);
+    }
+
+    public static void clearSession() {
+        SESSION.remove();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        Route route = route();
+        (route == Route.PRIMARY ? primaryRoutes : replicaRoutes).incrementAndGet();
+        return route;
+    }
+
+    public long getRouteCount(Route route) {
+        return route == Route.PRIMARY ? primaryRoutes.get() : replicaRoutes.get();
+    }
+
+    private Route route() {
+        Session session = SESSION.get();
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (session != null && TransactionSynchronizationManager.isActualTransactionActive()) {
+                markWrite(session);
+            }
+            return Route.PRIMARY;
+        }
+        if (readYourWrites && session != null && isWithinReplicaLag(session)) {
+            return Route.PRIMARY;
+        }
+        // Прочитанное из реплики может отставать: репозитории не кладут его в кэши
+        TransactionHooks.markReplicaRead();
+        return Route.REPLICA;
+    }
+
+    private boolean isWithinReplicaLag(Session session) {
+        long lastWrite = session.lastWriteMillis;
+        return lastWrite != 0 && clock.millis() - lastWrite < replicaLagMillis;
+    }
+
+    private void markWrite(Session session) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            session.written(clock.millis());
+            return;
+        }
+        // Отставание реплики отсчитывается от фиксации, а не от начала транзакции
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                session.written(clock.millis());
+            }
+        });
+    }
+
+    /**
+     * Момент последней записи одного клиента (по часам приложения, в миллисекундах) и способ сообщить ему о новой.
+     */
+    public static final class Session {
+        private final LongConsumer onWrite;
+
+        private volatile long lastWriteMillis;
+
+        public Session(long lastWriteMillis, LongConsumer onWrite) {
+            this.lastWriteMillis = lastWriteMillis;
+            this.onWrite = onWrite;
+        }
+
+        private void written(long millis) {
+            lastWriteMillis = millis;
+            onWrite.accept(millis);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package ru.yandex.practicum.filmorate.datasource;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Передаёт клиенту момент его последней записи в cookie {@value #COOKIE_NAME} и на время следующих запросов
+ * привязывает его к потоку, чтобы {@link ReadWriteRoutingDataSource} отправлял чтения этого клиента
+ * в основную базу, пока реплика могла не догнать его запись.
+ */
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+    public static final String COOKIE_NAME = "filmorate-last-write";
+
+    private final int maxAgeSeconds;
+
+    public ReadYourWritesFilter(long replicaLagMillis) {
+        this.maxAgeSeconds = (int) Math.max(1, (replicaLagMillis + 999) / 1000);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        ReadWriteRoutingDataSource.bindSession(new ReadWriteRoutingDataSource.Session(lastWrite(request), millis -> {
+            Cookie cookie = new Cookie(COOKIE_NAME, Long.toString(millis));
+            cookie.setPath("/");
+            cookie.setHttpOnly(true);
+            cookie.setMaxAge(maxAgeSeconds);
+            response.addCookie(cookie);
+        }));
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            ReadWriteRoutingDataSource.clearSession();
+        }
+    }
+
+    private static long lastWrite(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) {
+            return 0;
+        }
+        for (Cookie cookie : cookies) {
+            if (COOKIE_NAME.equals(cookie.getName())) {
+                try {
+                    return Long.parseLong(cookie.getValue());
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 0;
+    }
+}
@@ -35,6 +35,17 @@ public class GlobalExceptionHandler {
                 .build();
     }
 
+    @ExceptionHandler(OverloadedException.class)
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    @ResponseBody
+    public ErrorDto handleOverloadedException(OverloadedException ex) {
+        log.warn("Сервис перегружен: {}", ex.getMessage());
+        return ErrorDto.builder()
+                .code(HttpStatus.SERVICE_UNAVAILABLE.value())
+                .message(ex.getMessage())
+                .build();
+    }
+
     @ExceptionHandler(Exception.class)
     @ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
     @ResponseBody
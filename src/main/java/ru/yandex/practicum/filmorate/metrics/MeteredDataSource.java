@@ -0,0 +1,221 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Обёртка над пулом соединений, которая замеряет каждый выполненный оператор и считает прочитанные строки.
+ * Метрики тегируются формой SQL ({@link SqlShape}) и дополнительно накапливаются в {@link SqlRequestStats}
+ * текущего HTTP-запроса.
+ */
+public class MeteredDataSource extends DelegatingDataSource implements SmartInitializingSingleton {
+    public static final String STATEMENT_TIMER = "filmorate.sql";
+    public static final String ROWS_SUMMARY = "filmorate.sql.rows";
+
+    private final ObjectProvider<MeterRegistry> registryProvider;
+
+    private final Map<String, Meters> meters = new ConcurrentHashMap<>();
+
+    private volatile MeterRegistry registry;
+
+    public MeteredDataSource(DataSource target, ObjectProvider<MeterRegistry> registryProvider) {
+        super(target);
+        this.registryProvider = registryProvider;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrap(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrap(super.getConnection(username, password));
+    }
+
+    private Connection wrap(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                new ConnectionHandler(connection));
+    }
+
+    /**
+     * Реестр метрик берётся только после создания всех синглтонов: пул соединений нужен раньше,
+     * чем реестр (миграции, загрузка индексов), и запрашивать реестр при его создании нельзя.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        registry = registryProvider.getIfAvailable();
+    }
+
+    private Meters metersFor(String sql) {
+        MeterRegistry meterRegistry = registry;
+        if (meterRegistry == null) {
+            return Meters.NONE;
+        }
+        return meters.computeIfAbsent(SqlShape.of(sql), key -> {
+            Tags tags = Tags.of("type", SqlShape.typeOf(key), "statement", key);
+            return new Meters(
+                    Timer.builder(STATEMENT_TIMER)
+                            .description("Время выполнения SQL-оператора")
+                            .tags(tags)
+                            .register(meterRegistry),
+                    DistributionSummary.builder(ROWS_SUMMARY)
+                            .description("Количество строк, прочитанных из результата SQL-оператора")
+                            .tags(tags)
+                            .register(meterRegistry));
+        });
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static final class Meters {
+        private static final Meters NONE = new Meters(null, null);
+
+        private final Timer timer;
+
+        private final DistributionSummary rows;
+
+        private Meters(Timer timer, DistributionSummary rows) {
+            this.timer = timer;
+            this.rows = rows;
+        }
+    }
+
+    private final class ConnectionHandler implements InvocationHandler {
+        private final Connection target;
+
+        private ConnectionHandler(Connection target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result = MeteredDataSource.invoke(target, method, args);
+            if (result instanceof Statement) {
+                String sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : null;
+                Class<?> type = result instanceof CallableStatement ? CallableStatement.class
+                        : result instanceof PreparedStatement ? PreparedStatement.class
+                        : Statement.class;
+                return Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{type},
+                        new StatementHandler((Statement) result, sql));
+            }
+            return result;
+        }
+    }
+
+    private final class StatementHandler implements InvocationHandler {
+        private final Statement target;
+
+        private final String preparedSql;
+
+        private StatementHandler(Statement target, String preparedSql) {
+            this.target = target;
+            this.preparedSql = preparedSql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.startsWith("execute")) {
+                String sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : preparedSql;
+                Meters statementMeters = metersFor(sql);
+                SqlRequestStats requestStats = SqlRequestStats.current();
+                if (requestStats != null) {
+                    requestStats.statementExecuted(sql);
+                }
+
+                long start = System.nanoTime();
+                try {
+                    Object result = MeteredDataSource.invoke(target, method, args);
+                    return result instanceof ResultSet ? wrap((ResultSet) result, statementMeters) : result;
+                } finally {
+                    if (statementMeters.timer != null) {
+                        statementMeters.timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                    }
+                }
+            }
+
+            Object result = MeteredDataSource.invoke(target, method, args);
+            if ("getResultSet".equals(name) && result != null) {
+                return wrap((ResultSet) result, metersFor(preparedSql));
+            }
+            return result;
+        }
+
+        private ResultSet wrap(ResultSet resultSet, Meters statementMeters) {
+            return (ResultSet) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{ResultSet.class},
+                    new ResultSetHandler(resultSet, statementMeters));
+        }
+    }
+
+    private static final class ResultSetHandler implements InvocationHandler {
+        private final ResultSet target;
+
+        private final Meters statementMeters;
+
+        private long rows;
+
+        private boolean recorded;
+
+        private ResultSetHandler(ResultSet target, Meters statementMeters) {
+            this.target = target;
+            this.statementMeters = statementMeters;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result = MeteredDataSource.invoke(target, method, args);
+            String name = method.getName();
+            if ("next".equals(name)) {
+                if ((Boolean) result) {
+                    rows++;
+                } else {
+                    record();
+                }
+            } else if ("close".equals(name)) {
+                record();
+            }
+            return result;
+        }
+
+        private void record() {
+            if (recorded) {
+                return;
+            }
+            recorded = true;
+            if (statementMeters.rows != null) {
+                statementMeters.rows.record(rows);
+            }
+            SqlRequestStats requestStats = SqlRequestStats.current();
+            if (requestStats != null) {
+                requestStats.rowsRead(rows);
+            }
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Замеряет каждый публичный метод компонентов из пакетов {@code repository}.
+ */
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class RepositoryTimingAspect {
+    public static final String REPOSITORY_TIMER = "filmorate.repository";
+
+    private final MeterRegistry registry;
+
+    private final Map<Method, Timer> timers = new ConcurrentHashMap<>();
+
+    @Around("within(ru.yandex.practicum.filmorate.repository..*) "
+            + "&& @within(org.springframework.stereotype.Component) "
+            + "&& execution(public * *(..))")
+    public Object time(ProceedingJoinPoint joinPoint) throws Throwable {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        Timer timer = timers.computeIfAbsent(method, key -> Timer.builder(REPOSITORY_TIMER)
+                .description("Время выполнения метода репозитория")
+                .tag("class", key.getDeclaringClass().getSimpleName())
+                .tag("method", key.getName())
+                .register(registry));
+
+        long start = System.nanoTime();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+}
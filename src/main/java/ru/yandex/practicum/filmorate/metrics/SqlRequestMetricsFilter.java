@@ -0,0 +1,136 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Считает SQL-операторы и прочитанные строки за один HTTP-запрос и публикует их с тегами метода и шаблона URI.
+ * Если запрос превысил бюджет операторов, пишет предупреждение с повторяющимися формами SQL.
+ * <p>
+ * Асинхронный запрос учитывается при завершении асинхронной обработки: его задача в пуле MVC пишет
+ * в те же счётчики (см. {@link SqlRequestStats#propagate(Runnable)}). Запросы неблокирующего {@code /v2/films}
+ * идут через R2DBC мимо сервлетного фильтра и здесь не считаются.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SqlRequestMetricsFilter extends OncePerRequestFilter {
+    public static final String STATEMENTS_SUMMARY = "filmorate.http.sql.statements";
+    public static final String ROWS_SUMMARY = "filmorate.http.sql.rows";
+    public static final String BUDGET_EXCEEDED_COUNTER = "filmorate.http.sql.budget.exceeded";
+
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    private final MeterRegistry registry;
+
+    @Value("${filmorate.sql.statement-budget:25}")
+    private final int statementBudget;
+
+    @Value("${filmorate.sql.repeat-threshold:3}")
+    private final int repeatThreshold;
+
+    @Value("${filmorate.sql.budget-exclude:/films/bulk,/import/**}")
+    private final List<String> budgetExclude;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        SqlRequestStats stats = SqlRequestStats.begin();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            stats.end();
+            if (isAsyncStarted(request)) {
+                request.getAsyncContext().addListener(new RecordOnComplete(request, stats));
+            } else {
+                record(request, stats);
+            }
+        }
+    }
+
+    private void record(HttpServletRequest request, SqlRequestStats stats) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+        record(request.getMethod(), uri, stats);
+    }
+
+    private void record(String method, String uri, SqlRequestStats stats) {
+        DistributionSummary.builder(STATEMENTS_SUMMARY)
+                .description("Количество SQL-операторов за HTTP-запрос")
+                .tag("method", method)
+                .tag("uri", uri)
+                .register(registry)
+                .record(stats.getStatements());
+        DistributionSummary.builder(ROWS_SUMMARY)
+                .description("Количество строк, прочитанных из базы за HTTP-запрос")
+                .tag("method", method)
+                .tag("uri", uri)
+                .register(registry)
+                .record(stats.getRows());
+
+        if (stats.getStatements() > statementBudget && !isExcluded(uri)) {
+            Counter.builder(BUDGET_EXCEEDED_COUNTER)
+                    .description("Количество HTTP-запросов, превысивших бюджет SQL-операторов")
+                    .tag("method", method)
+                    .tag("uri", uri)
+                    .register(registry)
+                    .increment();
+            log.warn("Запрос {} {} выполнил {} SQL-операторов при бюджете {}. Повторяющиеся запросы:{}",
+                    method, uri, stats.getStatements(), statementBudget, stats.describe(repeatThreshold));
+        }
+    }
+
+    private boolean isExcluded(String uri) {
+        for (String excluded : budgetExclude) {
+            if (pathMatcher.match(excluded, uri)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Таймаут и ошибка асинхронной обработки тоже заканчиваются {@code onComplete}, поэтому запись — только в нём.
+     */
+    @RequiredArgsConstructor
+    private class RecordOnComplete implements AsyncListener {
+        private final HttpServletRequest request;
+
+        private final SqlRequestStats stats;
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            record(request, stats);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Счётчики SQL текущего HTTP-запроса. Живут в {@link ThreadLocal} от {@link #begin()} до {@link #end()},
+ * вне этого интервала {@link #current()} возвращает {@code null}. Вложенные интервалы восстанавливают внешний.
+ * <p>
+ * Задача, которую запрос отдал в другой поток, попадает в его счётчики, только если обёрнута
+ * {@link #propagate(Runnable)}: так сделано для пула асинхронной обработки MVC. Фоновые потоки, не связанные
+ * с запросом (запись очереди лайков, сброс счётчиков рейтинга), в счётчики запросов не попадают.
+ */
+public class SqlRequestStats {
+    private static final ThreadLocal<SqlRequestStats> CURRENT = new ThreadLocal<>();
+
+    private final SqlRequestStats outer;
+
+    private final Map<String, Integer> shapes = new ConcurrentHashMap<>();
+
+    private final AtomicInteger statements = new AtomicInteger();
+
+    private final AtomicLong rows = new AtomicLong();
+
+    private SqlRequestStats(SqlRequestStats outer) {
+        this.outer = outer;
+    }
+
+    public static SqlRequestStats begin() {
+        SqlRequestStats stats = new SqlRequestStats(CURRENT.get());
+        CURRENT.set(stats);
+        return stats;
+    }
+
+    public static SqlRequestStats current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Оборачивает задачу так, чтобы в чужом потоке она писала в счётчики, текущие в момент вызова.
+     */
+    public static Runnable propagate(Runnable task) {
+        SqlRequestStats stats = CURRENT.get();
+        if (stats == null) {
+            return task;
+        }
+        return () -> {
+            SqlRequestStats previous = CURRENT.get();
+            CURRENT.set(stats);
+            try {
+                task.run();
+            } finally {
+                if (previous != null) {
+                    CURRENT.set(previous);
+                } else {
+                    CURRENT.remove();
+                }
+            }
+        };
+    }
+
+    public void end() {
+        if (outer != null) {
+            CURRENT.set(outer);
+        } else {
+            CURRENT.remove();
+        }
+    }
+
+    public void statementExecuted(String sql) {
+        statements.incrementAndGet();
+        shapes.merge(SqlShape.of(sql), 1, Integer::sum);
+        if (outer != null) {
+            outer.statementExecuted(sql);
+        }
+    }
+
+    public void rowsRead(long count) {
+        rows.addAndGet(count);
+        if (outer != null) {
+            outer.rowsRead(count);
+        }
+    }
+
+    public int getStatements() {
+        return statements.get();
+    }
+
+    public long getRows() {
+        return rows.get();
+    }
+
+    /**
+     * Формы запросов, выполненных не меньше {@code threshold} раз, по убыванию числа повторов —
+     * типичный след N+1.
+     */
+    public Map<String, Integer> repeatedShapes(int threshold) {
+        Map<String, Integer> repeated = new LinkedHashMap<>();
+        shapes.entrySet().stream()
+                .filter(entry -> entry.getValue() >= threshold)
+                .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+                .forEach(entry -> repeated.put(entry.getKey(), entry.getValue()));
+        return repeated;
+    }
+
+    public String describe(int threshold) {
+        StringBuilder description = new StringBuilder();
+        repeatedShapes(threshold).forEach((shape, count) ->
+                description.append(System.lineSeparator()).append("    ").append(count).append(" × ").append(shape));
+        return description.toString();
+    }
+}
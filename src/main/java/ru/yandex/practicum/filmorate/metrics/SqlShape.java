@@ -0,0 +1,68 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Приводит SQL к «форме»: литералы заменяются на {@code ?}, списки параметров любой длины — на {@code (?)}.
+ * Запросы, отличающиеся только значениями, получают одну форму — её можно использовать как тег метрики.
+ */
+public final class SqlShape {
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("(?<![\\w.])-?\\d+(?:\\.\\d+)?(?![\\w.])");
+    private static final Pattern PARAMETER_LIST = Pattern.compile("\\(\\s*\\?(?:\\s*,\\s*\\?)*\\s*\\)");
+    private static final Pattern VALUES_LIST = Pattern.compile("(\\(\\?\\))(?:\\s*,\\s*\\(\\?\\))+");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final int MAX_CACHED = 10_000;
+    private static final Map<String, String> CACHE = new ConcurrentHashMap<>();
+
+    private SqlShape() {
+    }
+
+    public static String of(String sql) {
+        if (sql == null) {
+            return "unknown";
+        }
+        String cached = CACHE.get(sql);
+        if (cached != null) {
+            return cached;
+        }
+        String shape = normalize(sql);
+        if (CACHE.size() < MAX_CACHED) {
+            CACHE.put(sql, shape);
+        }
+        return shape;
+    }
+
+    private static String normalize(String sql) {
+        String shape = STRING_LITERAL.matcher(sql).replaceAll("?");
+        shape = NUMBER_LITERAL.matcher(shape).replaceAll("?");
+        shape = PARAMETER_LIST.matcher(shape).replaceAll("(?)");
+        shape = VALUES_LIST.matcher(shape).replaceAll("$1");
+        return WHITESPACE.matcher(shape).replaceAll(" ").trim();
+    }
+
+    public static String typeOf(String sql) {
+        if (sql == null) {
+            return "other";
+        }
+        String trimmed = sql.stripLeading();
+        int end = 0;
+        while (end < trimmed.length() && Character.isLetter(trimmed.charAt(end))) {
+            end++;
+        }
+        String keyword = trimmed.substring(0, end).toLowerCase(Locale.ROOT);
+        switch (keyword) {
+            case "select":
+            case "insert":
+            case "update":
+            case "delete":
+            case "merge":
+                return keyword;
+            default:
+                return "other";
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class CacheStats {
+    private int size;
+
+    private int maxSize;
+
+    private long hits;
+
+    private long misses;
+
+    private long evictions;
+
+    private long expirations;
+
+    private double hitRate;
+}
@@ -4,7 +4,9 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
@@ -17,7 +19,7 @@ import java.util.LinkedHashSet;
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
-@Builder
+@Builder(toBuilder = true)
 public class Film {
     private Integer id;
 
@@ -37,6 +39,7 @@ public class Film {
     private Integer duration;
 
     @JsonIgnore
+    @EqualsAndHashCode.Exclude
     private Integer likesCount;
 
     private Integer rate;
@@ -45,4 +48,9 @@ public class Film {
 
     @NotNull
     private RatingMPA mpa;
+
+    @JsonIgnore
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private Long ratingVersion;
 }
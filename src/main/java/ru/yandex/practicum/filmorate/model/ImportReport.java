@@ -0,0 +1,30 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class ImportReport {
+    private long total;
+
+    private long imported;
+
+    private long rejected;
+
+    private long duplicates;
+
+    private long elapsedMs;
+
+    private double rowsPerSecond;
+
+    @Builder.Default
+    private List<ImportError> errors = new ArrayList<>();
+}
@@ -0,0 +1,40 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class LikeQueueStats {
+    private boolean enabled;
+
+    private int capacity;
+
+    private int pending;
+
+    private long enqueued;
+
+    private long written;
+
+    private long inserted;
+
+    private long deleted;
+
+    private long coalesced;
+
+    private long failed;
+
+    private boolean failedInRange;
+
+    @Builder.Default
+    private List<Long> failedSequences = new ArrayList<>();
+
+    private boolean complete;
+}
@@ -0,0 +1,194 @@
+package ru.yandex.practicum.filmorate.repository;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+
+/**
+ * Разреженное отношение между id в виде отсортированных массивов: для каждого id слева хранятся связанные
+ * id справа и наоборот. Массивы не изменяются после публикации, поэтому читатели работают без блокировок;
+ * запись заменяет массив целиком.
+ */
+public final class AdjacencyIndex {
+
+    private static final int[] EMPTY = new int[0];
+
+    private final Map<Integer, int[]> forward = new ConcurrentHashMap<>();
+
+    private final Map<Integer, int[]> backward = new ConcurrentHashMap<>();
+
+    public synchronized long load(Consumer<LongConsumer> edges) {
+        PairBuffer forwardPairs = new PairBuffer();
+        PairBuffer backwardPairs = new PairBuffer();
+        edges.accept(pair -> {
+            forwardPairs.add(pair);
+            backwardPairs.add(IdPairs.pack(IdPairs.second(pair), IdPairs.first(pair)));
+        });
+        forward.clear();
+        backward.clear();
+        forwardPairs.groupInto(forward);
+        backwardPairs.groupInto(backward);
+        return forwardPairs.size;
+    }
+
+    public int[] forward(int from) {
+        return forward.getOrDefault(from, EMPTY);
+    }
+
+    public int[] backward(int to) {
+        return backward.getOrDefault(to, EMPTY);
+    }
+
+    public boolean contains(int from, int to) {
+        return Arrays.binarySearch(forward(from), to) >= 0;
+    }
+
+    public synchronized void add(int from, int to) {
+        update(forward, from, insert(forward(from), to));
+        update(backward, to, insert(backward(to), from));
+    }
+
+    public synchronized void addAll(List<int[]> edges) {
+        groupEdges(edges, 0, 1).forEach((from, ids) -> update(forward, from, union(forward(from), ids)));
+        groupEdges(edges, 1, 0).forEach((to, ids) -> update(backward, to, union(backward(to), ids)));
+    }
+
+    public synchronized void remove(int from, int to) {
+        update(forward, from, delete(forward(from), to));
+        update(backward, to, delete(backward(to), from));
+    }
+
+    public synchronized void removeFrom(int from) {
+        for (int to : forward(from)) {
+            update(backward, to, delete(backward(to), from));
+        }
+        forward.remove(from);
+    }
+
+    public synchronized void removeTo(int to) {
+        for (int from : backward(to)) {
+            update(forward, from, delete(forward(from), to));
+        }
+        backward.remove(to);
+    }
+
+    public static int[] intersect(int[] first, int[] second) {
+        int[] result = new int[Math.min(first.length, second.length)];
+        int i = 0;
+        int j = 0;
+        int size = 0;
+        while (i < first.length && j < second.length) {
+            if (first[i] < second[j]) {
+                i++;
+            } else if (first[i] > second[j]) {
+                j++;
+            } else {
+                result[size++] = first[i];
+                i++;
+                j++;
+            }
+        }
+        return size == result.length ? result : Arrays.copyOf(result, size);
+    }
+
+    private static void update(Map<Integer, int[]> adjacency, int key, int[] ids) {
+        if (ids.length == 0) {
+            adjacency.remove(key);
+        } else {
+            adjacency.put(key, ids);
+        }
+    }
+
+    private static int[] insert(int[] ids, int id) {
+        int position = Arrays.binarySearch(ids, id);
+        if (position >= 0) {
+            return ids;
+        }
+        position = -position - 1;
+        int[] result = new int[ids.length + 1];
+        System.arraycopy(ids, 0, result, 0, position);
+        result[position] = id;
+        System.arraycopy(ids, position, result, position + 1, ids.length - position);
+        return result;
+    }
+
+    private static int[] delete(int[] ids, int id) {
+        int position = Arrays.binarySearch(ids, id);
+        if (position < 0) {
+            return ids;
+        }
+        int[] result = new int[ids.length - 1];
+        System.arraycopy(ids, 0, result, 0, position);
+        System.arraycopy(ids, position + 1, result, position, ids.length - position - 1);
+        return result;
+    }
+
+    private static int[] union(int[] first, int[] second) {
+        int[] result = new int[first.length + second.length];
+        int i = 0;
+        int j = 0;
+        int size = 0;
+        while (i < first.length || j < second.length) {
+            int next;
+            if (j >= second.length || (i < first.length && first[i] < second[j])) {
+                next = first[i++];
+            } else if (i >= first.length || second[j] < first[i]) {
+                next = second[j++];
+            } else {
+                next = first[i++];
+                j++;
+            }
+            result[size++] = next;
+        }
+        return size == result.length ? result : Arrays.copyOf(result, size);
+    }
+
+    private static Map<Integer, int[]> groupEdges(List<int[]> edges, int keyIndex, int valueIndex) {
+        PairBuffer buffer = new PairBuffer();
+        for (int[] edge : edges) {
+            buffer.add(IdPairs.pack(edge[keyIndex], edge[valueIndex]));
+        }
+        Map<Integer, int[]> grouped = new HashMap<>();
+        buffer.groupInto(grouped);
+        return grouped;
+    }
+
+    private static final class PairBuffer {
+        private long[] pairs = new long[1024];
+
+        private int size;
+
+        private void add(long pair) {
+            if (size == pairs.length) {
+                pairs = Arrays.copyOf(pairs, size * 2);
+            }
+            pairs[size++] = pair;
+        }
+
+        private void groupInto(Map<Integer, int[]> adjacency) {
+            Arrays.sort(pairs, 0, size);
+            int start = 0;
+            while (start < size) {
+                int key = IdPairs.first(pairs[start]);
+                int end = start;
+                while (end < size && IdPairs.first(pairs[end]) == key) {
+                    end++;
+                }
+                int[] ids = new int[end - start];
+                int count = 0;
+                for (int i = start; i < end; i++) {
+                    int id = IdPairs.second(pairs[i]);
+                    if (count == 0 || ids[count - 1] != id) {
+                        ids[count++] = id;
+                    }
+                }
+                adjacency.put(key, count == ids.length ? ids : Arrays.copyOf(ids, count));
+                start = end;
+            }
+        }
+    }
+}
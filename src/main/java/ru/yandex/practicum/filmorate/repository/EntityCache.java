@@ -0,0 +1,165 @@
+package ru.yandex.practicum.filmorate.repository;
+
+import ru.yandex.practicum.filmorate.model.CacheStats;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+/**
+ * Ограниченный по размеру кэш сущностей с вытеснением давно не читавшихся записей и временем жизни.
+ * Хранит и отдаёт копии, чтобы изменения объекта вызывающим кодом не попадали в кэш.
+ * Значение, загруженное параллельно с инвалидацией того же ключа, в кэш не кладётся; прочитанное из реплики —
+ * тоже, оно могло отстать от основной базы.
+ * <p>
+ * Инвалидация ключа оставляет «надгробие» с номером инвалидации. Загрузка запоминает номер до чтения из базы
+ * ({@link #stamp()}) и не кладёт значение, если после этого ключ инвалидировали. Надгробий хранится не больше,
+ * чем записей; при вытеснении старого надгробия отвергаются все загрузки, начатые до него, — они заведомо
+ * давние. Инвалидация других ключей загрузкам не мешает.
+ */
+public class EntityCache<K, V> {
+
+    private final int maxSize;
+
+    private final long ttlNanos;
+
+    private final UnaryOperator<V> copier;
+
+    private final LinkedHashMap<K, Entry<V>> entries;
+
+    private final AtomicLong invalidations = new AtomicLong();
+
+    private final LinkedHashMap<K, Long> tombstones;
+
+    private long floor;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder evictions = new LongAdder();
+
+    private final LongAdder expirations = new LongAdder();
+
+    public EntityCache(int maxSize, long ttlMillis, UnaryOperator<V> copier) {
+        this.maxSize = maxSize;
+        this.ttlNanos = ttlMillis * 1_000_000L;
+        this.copier = copier;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                if (size() > EntityCache.this.maxSize) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+        this.tombstones = new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Long> eldest) {
+                if (size() > Math.max(EntityCache.this.maxSize, 1)) {
+                    floor = Math.max(floor, eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public V get(K key, Function<K, V> loader) {
+        V cached = getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        long stamp = stamp();
+        V loaded = loader.apply(key);
+        put(key, loaded, stamp);
+        return loaded;
+    }
+
+    public V getIfPresent(K key) {
+        V value;
+        synchronized (entries) {
+            Entry<V> entry = entries.get(key);
+            if (entry != null && entry.expiresAt - System.nanoTime() <= 0) {
+                entries.remove(key);
+                expirations.increment();
+                entry = null;
+            }
+            value = entry != null ? entry.value : null;
+        }
+        if (value == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return copier.apply(value);
+    }
+
+    public long stamp() {
+        return invalidations.get();
+    }
+
+    public void put(K key, V value, long stamp) {
+        if (maxSize <= 0 || value == null || TransactionHooks.isReplicaRead()) {
+            return;
+        }
+        Entry<V> entry = new Entry<>(copier.apply(value), System.nanoTime() + ttlNanos);
+        synchronized (entries) {
+            Long invalidatedAt = tombstones.get(key);
+            if (stamp >= floor && (invalidatedAt == null || invalidatedAt <= stamp)) {
+                entries.put(key, entry);
+            }
+        }
+    }
+
+    public void invalidate(K key) {
+        synchronized (entries) {
+            tombstones.remove(key);
+            tombstones.put(key, invalidations.incrementAndGet());
+            entries.remove(key);
+        }
+    }
+
+    public void invalidateAll() {
+        synchronized (entries) {
+            floor = invalidations.incrementAndGet();
+            tombstones.clear();
+            entries.clear();
+        }
+    }
+
+    public CacheStats stats() {
+        int size;
+        synchronized (entries) {
+            size = entries.size();
+        }
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long requests = hitCount + missCount;
+        return CacheStats.builder()
+                .size(size)
+                .maxSize(maxSize)
+                .hits(hitCount)
+                .misses(missCount)
+                .evictions(evictions.sum())
+                .expirations(expirations.sum())
+                .hitRate(requests == 0 ? 0 : (double) hitCount / requests)
+                .build();
+    }
+
+    private static final class Entry<V> {
+        private final V value;
+
+        private final long expiresAt;
+
+        private Entry(V value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package ru.yandex.practicum.filmorate.repository;
+
+import java.util.BitSet;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Потокобезопасное множество неотрицательных id в виде битовой карты. Проверка не берёт блокировок,
+ * изменения идут через CAS по словам; блокировка на запись нужна только при росте массива.
+ */
+public final class IdBitmap {
+
+    private final ReadWriteLock resizeLock = new ReentrantReadWriteLock();
+
+    private volatile AtomicLongArray words = new AtomicLongArray(1);
+
+    public boolean contains(int id) {
+        if (id < 0) {
+            return false;
+        }
+        AtomicLongArray current = words;
+        int index = id >>> 6;
+        return index < current.length() && (current.get(index) & (1L << id)) != 0;
+    }
+
+    public void add(int id) {
+        if (id < 0) {
+            throw new IllegalArgumentException("Отрицательный id: " + id);
+        }
+        int index = id >>> 6;
+        long mask = 1L << id;
+        while (true) {
+            resizeLock.readLock().lock();
+            try {
+                AtomicLongArray current = words;
+                if (index < current.length()) {
+                    long word;
+                    do {
+                        word = current.get(index);
+                    } while ((word & mask) == 0 && !current.compareAndSet(index, word, word | mask));
+                    return;
+                }
+            } finally {
+                resizeLock.readLock().unlock();
+            }
+            grow(index + 1);
+        }
+    }
+
+    public void remove(int id) {
+        if (id < 0) {
+            return;
+        }
+        int index = id >>> 6;
+        long mask = 1L << id;
+        resizeLock.readLock().lock();
+        try {
+            AtomicLongArray current = words;
+            if (index >= current.length()) {
+                return;
+            }
+            long word;
+            do {
+                word = current.get(index);
+            } while ((word & mask) != 0 && !current.compareAndSet(index, word, word & ~mask));
+        } finally {
+            resizeLock.readLock().unlock();
+        }
+    }
+
+    public void reset(BitSet ids) {
+        long[] source = ids.toLongArray();
+        AtomicLongArray loaded = new AtomicLongArray(Math.max(source.length, 1));
+        for (int i = 0; i < source.length; i++) {
+            loaded.set(i, source[i]);
+        }
+        resizeLock.writeLock().lock();
+        try {
+            words = loaded;
+        } finally {
+            resizeLock.writeLock().unlock();
+        }
+    }
+
+    public BitSet toBitSet() {
+        AtomicLongArray current = words;
+        long[] snapshot = new long[current.length()];
+        for (int i = 0; i < snapshot.length; i++) {
+            snapshot[i] = current.get(i);
+        }
+        return BitSet.valueOf(snapshot);
+    }
+
+    private void grow(int minWords) {
+        resizeLock.writeLock().lock();
+        try {
+            AtomicLongArray current = words;
+            if (current.length() >= minWords) {
+                return;
+            }
+            AtomicLongArray grown = new AtomicLongArray(Math.max(minWords, current.length() * 2));
+            for (int i = 0; i < current.length(); i++) {
+                grown.set(i, current.get(i));
+            }
+            words = grown;
+        } finally {
+            resizeLock.writeLock().unlock();
+        }
+    }
+}
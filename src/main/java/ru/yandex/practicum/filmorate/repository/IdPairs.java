@@ -0,0 +1,19 @@
+package ru.yandex.practicum.filmorate.repository;
+
+public final class IdPairs {
+
+    private IdPairs() {
+    }
+
+    public static long pack(int first, int second) {
+        return ((long) first << 32) | (second & 0xFFFFFFFFL);
+    }
+
+    public static int first(long pair) {
+        return (int) (pair >>> 32);
+    }
+
+    public static int second(long pair) {
+        return (int) pair;
+    }
+}
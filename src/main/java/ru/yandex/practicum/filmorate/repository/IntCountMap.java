@@ -0,0 +1,146 @@
+package ru.yandex.practicum.filmorate.repository;
+
+import java.util.Arrays;
+import java.util.PriorityQueue;
+import java.util.function.IntPredicate;
+
+/**
+ * Счётчики по неотрицательным int-ключам (id) на открытой адресации без упаковки в объекты.
+ */
+public final class IntCountMap {
+
+    private static final int EMPTY = Integer.MIN_VALUE;
+
+    private int[] keys;
+
+    private int[] counts;
+
+    private int size;
+
+    public IntCountMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(expectedSize, 8) * 2 - 1) << 1;
+        keys = new int[capacity];
+        counts = new int[capacity];
+        Arrays.fill(keys, EMPTY);
+    }
+
+    public void add(int key, int delta) {
+        if ((size + 1) * 2 > keys.length) {
+            grow();
+        }
+        int index = find(keys, key);
+        if (keys[index] == EMPTY) {
+            keys[index] = key;
+            size++;
+        }
+        counts[index] += delta;
+    }
+
+    public int get(int key) {
+        int index = find(keys, key);
+        return keys[index] == EMPTY ? 0 : counts[index];
+    }
+
+    public void remove(int key) {
+        int mask = keys.length - 1;
+        int index = find(keys, key);
+        if (keys[index] == EMPTY) {
+            return;
+        }
+        size--;
+        int next = (index + 1) & mask;
+        while (keys[next] != EMPTY) {
+            int ideal = slot(keys[next], mask);
+            if (((next - ideal) & mask) >= ((next - index) & mask)) {
+                keys[index] = keys[next];
+                counts[index] = counts[next];
+                index = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[index] = EMPTY;
+        counts[index] = 0;
+    }
+
+    public void forEach(EntryConsumer consumer) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) {
+                consumer.accept(keys[i], counts[i]);
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void addAll(IntCountMap other) {
+        for (int i = 0; i < other.keys.length; i++) {
+            if (other.keys[i] != EMPTY) {
+                add(other.keys[i], other.counts[i]);
+            }
+        }
+    }
+
+    /**
+     * Возвращает до limit ключей с наибольшими счётчиками: по убыванию счётчика, при равенстве по возрастанию ключа.
+     */
+    public int[] top(int limit, IntPredicate excluded) {
+        if (limit <= 0) {
+            return new int[0];
+        }
+        PriorityQueue<Long> heap = new PriorityQueue<>(Math.min(limit, size) + 1);
+        for (int i = 0; i < keys.length; i++) {
+            int key = keys[i];
+            if (key == EMPTY || counts[i] <= 0 || excluded.test(key)) {
+                continue;
+            }
+            long rank = ((long) counts[i] << 32) | (Integer.MAX_VALUE - (long) key);
+            if (heap.size() < limit) {
+                heap.add(rank);
+            } else if (rank > heap.peek()) {
+                heap.poll();
+                heap.add(rank);
+            }
+        }
+        int[] result = new int[heap.size()];
+        for (int i = result.length - 1; i >= 0; i--) {
+            result[i] = (int) (Integer.MAX_VALUE - (heap.poll() & 0xFFFFFFFFL));
+        }
+        return result;
+    }
+
+    private void grow() {
+        int[] oldKeys = keys;
+        int[] oldCounts = counts;
+        keys = new int[oldKeys.length * 2];
+        counts = new int[oldKeys.length * 2];
+        Arrays.fill(keys, EMPTY);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int index = find(keys, oldKeys[i]);
+                keys[index] = oldKeys[i];
+                counts[index] = oldCounts[i];
+            }
+        }
+    }
+
+    private static int find(int[] table, int key) {
+        int mask = table.length - 1;
+        int index = slot(key, mask);
+        while (table[index] != EMPTY && table[index] != key) {
+            index = (index + 1) & mask;
+        }
+        return index;
+    }
+
+    private static int slot(int key, int mask) {
+        int hash = key * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    @FunctionalInterface
+    public interface EntryConsumer {
+        void accept(int key, int count);
+    }
+}
@@ -0,0 +1,74 @@
+package ru.yandex.practicum.filmorate.repository;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Потокобезопасный фильтр Блума над значениями long. Отрицательный ответ точен, положительный
+ * означает «возможно есть». Удалять значения нельзя; размер задаётся при создании и не растёт.
+ */
+public final class LongBloomFilter {
+    private static final long MAX_BITS = 1L << 32;
+
+    private static final int MAX_HASHES = 16;
+
+    private final AtomicLongArray words;
+
+    private final long mask;
+
+    private final int hashes;
+
+    public LongBloomFilter(long expectedInsertions, double falsePositiveRate) {
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("Доля ложных срабатываний должна быть в (0, 1): " + falsePositiveRate);
+        }
+        long expected = Math.max(expectedInsertions, 1);
+        double optimalBits = -expected * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2));
+        long bits = Math.min(MAX_BITS, Math.max(Long.SIZE, Long.highestOneBit((long) Math.ceil(optimalBits) - 1) << 1));
+        words = new AtomicLongArray((int) (bits >>> 6));
+        mask = bits - 1;
+        hashes = (int) Math.max(1, Math.min(MAX_HASHES, Math.round((double) bits / expected * Math.log(2))));
+    }
+
+    public boolean mightContain(long value) {
+        long first = mix(value);
+        long second = mix(value ^ 0x9E3779B97F4A7C15L) | 1;
+        for (int i = 0; i < hashes; i++) {
+            long bit = (first + i * second) & mask;
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public void add(long value) {
+        long first = mix(value);
+        long second = mix(value ^ 0x9E3779B97F4A7C15L) | 1;
+        for (int i = 0; i < hashes; i++) {
+            long bit = (first + i * second) & mask;
+            int index = (int) (bit >>> 6);
+            long bitMask = 1L << bit;
+            long word;
+            do {
+                word = words.get(index);
+            } while ((word & bitMask) == 0 && !words.compareAndSet(index, word, word | bitMask));
+        }
+    }
+
+    public long bitSize() {
+        return mask + 1;
+    }
+
+    public int hashes() {
+        return hashes;
+    }
+
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xFF51AFD7ED558CCDL;
+        value ^= value >>> 33;
+        value *= 0xC4CEB9FE1A85EC53L;
+        value ^= value >>> 33;
+        return value;
+    }
+}
@@ -1,5 +1,6 @@
 package ru.yandex.practicum.filmorate.repository;
 
+import org.springframework.jdbc.core.ResultSetExtractor;
 import org.springframework.jdbc.core.RowMapper;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.Genre;
@@ -7,59 +8,158 @@ import ru.yandex.practicum.filmorate.model.RatingMPA;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.sql.Timestamp;
 import java.sql.Types;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
 
 public class ModelMapper {
-    public static RowMapper<List<Film>> mapperGetFilms() {
+    public static final String INSERT_FILM_SQL = "INSERT INTO films (duration, name, description, rating, release_date, id_ratingMPA) " +
+            "VALUES (?, ?, ?, ?, ?, ?)";
+
+    /**
+     * Доступ к колонкам текущей строки результата: {@link #columns(ResultSet)} для JDBC, {@code Row::get} для R2DBC.
+     * Через него фильм из строки собирается одним и тем же кодом в обоих случаях.
+     */
+    @FunctionalInterface
+    public interface Columns<E extends Exception> {
+        <T> T get(String column, Class<T> type) throws E;
+    }
+
+    /**
+     * Колонки строки JDBC. Дата и время читаются через {@code getTimestamp}: его поддерживает любая реализация
+     * {@code ResultSet}, а {@code getObject(column, LocalDateTime.class)} — не каждая.
+     */
+    public static Columns<SQLException> columns(ResultSet rs) {
+        return new Columns<>() {
+            @Override
+            public <T> T get(String column, Class<T> type) throws SQLException {
+                if (type == LocalDateTime.class) {
+                    Timestamp timestamp = rs.getTimestamp(column);
+                    return type.cast(timestamp != null ? timestamp.toLocalDateTime() : null);
+                }
+                return rs.getObject(column, type);
+            }
+        };
+    }
+
+    public static RowMapper<List<Film>> mapperGetFilms(IntFunction<RatingMPA> ratings, IntFunction<Genre> genres) {
         return (rs, rowNum) -> {
-            Map<Integer, Film> filmMap = new HashMap<>();
+            Map<Integer, Film> filmMap = new LinkedHashMap<>();
+            Columns<SQLException> columns = columns(rs);
 
             do {
                 int filmId = rs.getInt("id");
 
-                if (!filmMap.containsKey(filmId)) {
-                    Film film = new Film();
-                    film.setId(filmId);
-                    film.setName(rs.getString("name"));
-                    film.setDescription(rs.getString("description"));
-                    film.setReleaseDate(rs.getDate("release_date").toLocalDate());
-                    film.setDuration(rs.getInt("duration"));
-                    film.setRate(rs.getInt("rating"));
-                    film.setGenres(new LinkedHashSet<>());
+                Film film = filmMap.get(filmId);
+                if (film == null) {
+                    film = mapFilm(columns, ratings);
                     filmMap.put(filmId, film);
-
-                    RatingMPA ratingMpa = new RatingMPA();
-                    ratingMpa.setId(rs.getInt("id_ratingMPA"));
-                    ratingMpa.setName(rs.getString("name_MPA"));
-                    film.setMpa(ratingMpa);
-                }
-
-                int genreId = rs.getInt("id_genre");
-                if (genreId > 0) {
-                    Genre genre = new Genre();
-                    genre.setId(genreId);
-                    genre.setName(rs.getString("name_genre"));
-                    filmMap.get(filmId).getGenres().add(genre);
                 }
+                addGenre(columns, film, genres);
             } while (rs.next());
 
             return new ArrayList<>(filmMap.values());
         };
     }
 
+    public static ResultSetExtractor<Integer> extractorStreamFilms(IntFunction<RatingMPA> ratings, IntFunction<Genre> genres,
+                                                                   Consumer<Film> consumer) {
+        return rs -> {
+            int count = 0;
+            Film current = null;
+            Columns<SQLException> columns = columns(rs);
+
+            while (rs.next()) {
+                int filmId = rs.getInt("id");
+
+                if (current == null || current.getId() != filmId) {
+                    if (current != null) {
+                        consumer.accept(current);
+                        count++;
+                    }
+                    current = mapFilm(columns, ratings);
+                }
+                addGenre(columns, current, genres);
+            }
+
+            if (current != null) {
+                consumer.accept(current);
+                count++;
+            }
+            return count;
+        };
+    }
+
+    /**
+     * Фильм из строки с рейтингом MPA из справочника; жанры строки добавляет {@link #addGenre}.
+     */
+    public static <E extends Exception> Film mapFilm(Columns<E> columns, IntFunction<RatingMPA> ratings) throws E {
+        Film film = mapFilmColumns(columns);
+        Integer ratingMpaId = columns.get("id_ratingMPA", Integer.class);
+        film.setMpa(ratingMpaId != null ? ratings.apply(ratingMpaId) : null);
+        return film;
+    }
+
+    public static Film mapFilmColumns(ResultSet rs) throws SQLException {
+        return mapFilmColumns(columns(rs));
+    }
+
+    public static <E extends Exception> Film mapFilmColumns(Columns<E> columns) throws E {
+        Film film = new Film();
+        film.setId(columns.get("id", Integer.class));
+        film.setName(columns.get("name", String.class));
+        film.setDescription(columns.get("description", String.class));
+        film.setReleaseDate(columns.get("release_date", LocalDateTime.class).toLocalDate());
+        film.setDuration(columns.get("duration", Integer.class));
+        Integer rating = columns.get("rating", Integer.class);
+        film.setRate(rating != null ? rating : 0);
+        Long ratingVersion = columns.get("rating_version", Long.class);
+        film.setRatingVersion(ratingVersion != null ? ratingVersion : 0);
+        film.setGenres(new LinkedHashSet<>());
+        return film;
+    }
+
+    /**
+     * Добавляет фильму жанр строки (при LEFT JOIN жанров у фильма без жанров его нет).
+     */
+    public static <E extends Exception> void addGenre(Columns<E> columns, Film film, IntFunction<Genre> genres) throws E {
+        Integer genreId = columns.get("id_genre", Integer.class);
+        if (genreId != null && genreId > 0) {
+            Genre genre = genres.apply(genreId);
+            if (genre != null) {
+                film.getGenres().add(genre);
+            }
+        }
+    }
+
+    /**
+     * Склеивает строки одного фильма, полученные по одной на жанр, в один фильм.
+     */
+    public static Film mergeFilmRows(List<Film> rows) {
+        Film film = rows.get(0);
+        for (int i = 1; i < rows.size(); i++) {
+            film.getGenres().addAll(rows.get(i).getGenres());
+        }
+        return film;
+    }
+
     public static PreparedStatement createInsertFilmStatement(Connection connection, Film film, Integer[] genreIds) throws SQLException {
-        String insertFilmSql = "INSERT INTO films (duration, name, description, rating, release_date, id_ratingMPA) " +
-                "VALUES (?, ?, ?, ?, ?, ?)";
+        PreparedStatement ps = connection.prepareStatement(INSERT_FILM_SQL, Statement.RETURN_GENERATED_KEYS);
+        setInsertFilmParameters(ps, film);
+        return ps;
+    }
 
-        PreparedStatement ps = connection.prepareStatement(insertFilmSql, Statement.RETURN_GENERATED_KEYS);
+    public static void setInsertFilmParameters(PreparedStatement ps, Film film) throws SQLException {
         ps.setInt(1, film.getDuration());
         ps.setString(2, film.getName());
         ps.setString(3, film.getDescription());
@@ -70,9 +170,6 @@ public class ModelMapper {
         }
         ps.setTimestamp(5, Timestamp.valueOf(film.getReleaseDate().atStartOfDay()));
         ps.setInt(6, film.getMpa().getId());
-
-
-        return ps;
     }
 
 }
@@ -0,0 +1,46 @@
+package ru.yandex.practicum.filmorate.repository;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+/**
+ * Неизменяемый справочник с доступом по id через массив. Экземпляры значений общие для всех читателей,
+ * поэтому изменять их нельзя; при обновлении справочника таблица целиком заменяется новой.
+ */
+public final class ReferenceTable<T> {
+
+    private final Object[] byId;
+
+    private final List<T> values;
+
+    public ReferenceTable(List<T> values, ToIntFunction<T> idFunction) {
+        int maxId = 0;
+        for (T value : values) {
+            maxId = Math.max(maxId, idFunction.applyAsInt(value));
+        }
+        Object[] table = new Object[maxId + 1];
+        for (T value : values) {
+            table[idFunction.applyAsInt(value)] = value;
+        }
+        this.byId = table;
+        this.values = Collections.unmodifiableList(new ArrayList<>(values));
+    }
+
+    @SuppressWarnings("unchecked")
+    public T get(Integer id) {
+        if (id == null || id < 0 || id >= byId.length) {
+            return null;
+        }
+        return (T) byId[id];
+    }
+
+    public boolean contains(Integer id) {
+        return get(id) != null;
+    }
+
+    public List<T> getAll() {
+        return values;
+    }
+}
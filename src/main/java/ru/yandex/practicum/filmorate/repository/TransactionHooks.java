@@ -0,0 +1,60 @@
+package ru.yandex.practicum.filmorate.repository;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+public final class TransactionHooks {
+
+    /**
+     * Ключ ресурса транзакции, которым источник данных помечает чтение из реплики.
+     */
+    private static final Object REPLICA_READ = new Object();
+
+    private TransactionHooks() {
+    }
+
+    public static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    public static void afterCompletion(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                action.run();
+            }
+        });
+    }
+
+    /**
+     * Помечает текущую транзакцию как читающую из реплики до её завершения.
+     */
+    public static void markReplicaRead() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()
+                || TransactionSynchronizationManager.hasResource(REPLICA_READ)) {
+            return;
+        }
+        TransactionSynchronizationManager.bindResource(REPLICA_READ, Boolean.TRUE);
+        afterCompletion(() -> TransactionSynchronizationManager.unbindResourceIfPossible(REPLICA_READ));
+    }
+
+    /**
+     * Читает ли текущая транзакция из реплики. Такие данные могут отставать, класть их в кэши нельзя.
+     */
+    public static boolean isReplicaRead() {
+        return TransactionSynchronizationManager.hasResource(REPLICA_READ);
+    }
+}
@@ -0,0 +1,101 @@
+package ru.yandex.practicum.filmorate.repository.film;
+
+import lombok.AllArgsConstructor;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.repository.genre.GenreFilmRepository;
+import ru.yandex.practicum.filmorate.repository.like.LikeCounter;
+import ru.yandex.practicum.filmorate.repository.rating.RatingMPARepository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+import static ru.yandex.practicum.filmorate.repository.ModelMapper.columns;
+import static ru.yandex.practicum.filmorate.repository.ModelMapper.mapFilm;
+
+/**
+ * Собирает фильмы по списку id за фиксированное число запросов: фильмы, их жанры и, при необходимости,
+ * количество лайков. Число запросов не зависит от числа id. Рейтинги MPA и названия жанров берутся
+ * из справочников в памяти.
+ */
+@Component
+@AllArgsConstructor
+public class FilmAssembler {
+
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    private final LikeCounter likeCounter;
+
+    private final GenreFilmRepository genreStorage;
+
+    private final RatingMPARepository ratingMpaStorage;
+
+    public List<Film> assemble(Collection<Integer> filmIds) {
+        return assemble(filmIds, false);
+    }
+
+    public List<Film> assembleWithLikes(Collection<Integer> filmIds) {
+        return assemble(filmIds, true);
+    }
+
+    private List<Film> assemble(Collection<Integer> filmIds, boolean withLikes) {
+        LinkedHashSet<Integer> ids = new LinkedHashSet<>(filmIds);
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        MapSqlParameterSource params = new MapSqlParameterSource("ids", ids);
+
+        String selectFilmsSql = "SELECT id, name, description, release_date, duration, rating, rating_version, id_ratingMPA " +
+                "FROM films " +
+                "WHERE id IN (:ids)";
+        Map<Integer, Film> films = new HashMap<>();
+        namedJdbcTemplate.query(selectFilmsSql, params, (RowCallbackHandler) rs -> {
+            Film film = likeCounter.applyPending(mapFilm(columns(rs), ratingMpaStorage::getById));
+            films.put(film.getId(), film);
+        });
+        if (films.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        String selectGenresSql = "SELECT id_film, id_genre FROM genre_film " +
+                "WHERE id_film IN (:ids) " +
+                "ORDER BY id_film, id_genre";
+        namedJdbcTemplate.query(selectGenresSql, params, (RowCallbackHandler) rs -> {
+            Film film = films.get(rs.getInt("id_film"));
+            Genre genre = genreStorage.getById(rs.getInt("id_genre"));
+            if (film != null && genre != null) {
+                film.getGenres().add(genre);
+            }
+        });
+
+        if (withLikes) {
+            films.values().forEach(film -> film.setLikesCount(0));
+            String countLikesSql = "SELECT id_film, COUNT(*) AS like_count FROM like_film " +
+                    "WHERE id_film IN (:ids) " +
+                    "GROUP BY id_film";
+            namedJdbcTemplate.query(countLikesSql, params, (RowCallbackHandler) rs -> {
+                Film film = films.get(rs.getInt("id_film"));
+                if (film != null) {
+                    film.setLikesCount(rs.getInt("like_count"));
+                }
+            });
+        }
+
+        List<Film> result = new ArrayList<>(films.size());
+        for (Integer id : ids) {
+            Film film = films.get(id);
+            if (film != null) {
+                result.add(film);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,195 @@
+package ru.yandex.practicum.filmorate.repository.film;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Упорядоченный по рейтингу индекс фильмов: рейтинг по убыванию, при равенстве — id по возрастанию.
+ * Кроме общего рейтинга ведутся такие же рейтинги по каждому жанру, году выпуска и паре «жанр, год»,
+ * поэтому топ-N, в том числе с фильтром, читается без обращения к базе и без просмотра лишних фильмов.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FilmPopularityIndex {
+
+    private static final Comparator<Entry> ORDER = Comparator.comparingInt((Entry entry) -> entry.rate).reversed()
+            .thenComparingInt(entry -> entry.filmId);
+
+    private static final int[] NO_GENRES = new int[0];
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final ConcurrentSkipListSet<Entry> ranking = new ConcurrentSkipListSet<>(ORDER);
+
+    private final Map<Integer, ConcurrentSkipListSet<Entry>> rankingByGenre = new ConcurrentHashMap<>();
+
+    private final Map<Integer, ConcurrentSkipListSet<Entry>> rankingByYear = new ConcurrentHashMap<>();
+
+    private final Map<Long, ConcurrentSkipListSet<Entry>> rankingByGenreAndYear = new ConcurrentHashMap<>();
+
+    private final Map<Integer, Entry> entries = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public synchronized void rebuild() {
+        ranking.clear();
+        rankingByGenre.clear();
+        rankingByYear.clear();
+        rankingByGenreAndYear.clear();
+        entries.clear();
+
+        String sql = "SELECT f.id, COALESCE(f.rating, 0) AS rating, f.release_date, gf.id_genre " +
+                "FROM films f " +
+                "LEFT JOIN genre_film gf ON f.id = gf.id_film " +
+                "ORDER BY f.id, gf.id_genre";
+        Map<Integer, Entry> loaded = new LinkedHashMap<>();
+        jdbcTemplate.query(sql, (RowCallbackHandler) rs -> {
+            int filmId = rs.getInt("id");
+            Entry entry = loaded.get(filmId);
+            if (entry == null) {
+                entry = new Entry(filmId, rs.getInt("rating"),
+                        rs.getDate("release_date").toLocalDate().getYear(), NO_GENRES);
+                loaded.put(filmId, entry);
+            }
+            int genreId = rs.getInt("id_genre");
+            if (!rs.wasNull()) {
+                int[] genreIds = Arrays.copyOf(entry.genreIds, entry.genreIds.length + 1);
+                genreIds[genreIds.length - 1] = genreId;
+                loaded.put(filmId, new Entry(filmId, entry.rate, entry.year, genreIds));
+            }
+        });
+        loaded.values().forEach(this::insert);
+        log.info("Индекс популярности фильмов построен: {} фильмов, {} жанров, {} лет",
+                entries.size(), rankingByGenre.size(), rankingByYear.size());
+    }
+
+    public synchronized void put(Film film) {
+        int[] genreIds = film.getGenres() == null ? NO_GENRES : film.getGenres().stream()
+                .map(Genre::getId)
+                .filter(Objects::nonNull)
+                .mapToInt(Integer::intValue)
+                .sorted()
+                .distinct()
+                .toArray();
+        remove(film.getId());
+        insert(new Entry(film.getId(), film.getRate() != null ? film.getRate() : 0,
+                film.getReleaseDate().getYear(), genreIds));
+    }
+
+    public synchronized void adjust(int filmId, int delta) {
+        Entry previous = entries.get(filmId);
+        if (previous != null) {
+            remove(filmId);
+            insert(new Entry(filmId, previous.rate + delta, previous.year, previous.genreIds));
+        }
+    }
+
+    public synchronized void remove(int filmId) {
+        Entry previous = entries.remove(filmId);
+        if (previous == null) {
+            return;
+        }
+        ranking.remove(previous);
+        removeFromPartition(rankingByYear, previous.year, previous);
+        for (int genreId : previous.genreIds) {
+            removeFromPartition(rankingByGenre, genreId, previous);
+            removeFromPartition(rankingByGenreAndYear, genreAndYear(genreId, previous.year), previous);
+        }
+    }
+
+    public int rateOf(int filmId) {
+        Entry entry = entries.get(filmId);
+        return entry != null ? entry.rate : 0;
+    }
+
+    public List<Integer> top(int count) {
+        return top(count, null, null);
+    }
+
+    /**
+     * Первые {@code count} фильмов рейтинга, при необходимости только заданного жанра и (или) года.
+     * Каждому сочетанию фильтров соответствует своя партиция, поэтому читается не больше {@code count} записей.
+     */
+    public List<Integer> top(int count, Integer genreId, Integer year) {
+        NavigableSet<Entry> partition;
+        if (genreId != null && year != null) {
+            partition = rankingByGenreAndYear.get(genreAndYear(genreId, year));
+        } else if (genreId != null) {
+            partition = rankingByGenre.get(genreId);
+        } else if (year != null) {
+            partition = rankingByYear.get(year);
+        } else {
+            partition = ranking;
+        }
+        if (partition == null) {
+            return new ArrayList<>();
+        }
+
+        List<Integer> filmIds = new ArrayList<>(Math.min(Math.max(count, 0), partition.size()));
+        Iterator<Entry> iterator = partition.iterator();
+        while (filmIds.size() < count && iterator.hasNext()) {
+            filmIds.add(iterator.next().filmId);
+        }
+        return filmIds;
+    }
+
+    private void insert(Entry entry) {
+        entries.put(entry.filmId, entry);
+        ranking.add(entry);
+        rankingByYear.computeIfAbsent(entry.year, year -> new ConcurrentSkipListSet<>(ORDER)).add(entry);
+        for (int genreId : entry.genreIds) {
+            rankingByGenre.computeIfAbsent(genreId, id -> new ConcurrentSkipListSet<>(ORDER)).add(entry);
+            rankingByGenreAndYear.computeIfAbsent(genreAndYear(genreId, entry.year),
+                    key -> new ConcurrentSkipListSet<>(ORDER)).add(entry);
+        }
+    }
+
+    private static long genreAndYear(int genreId, int year) {
+        return ((long) genreId << 32) | (year & 0xFFFFFFFFL);
+    }
+
+    private static <K> void removeFromPartition(Map<K, ConcurrentSkipListSet<Entry>> partitions, K key, Entry entry) {
+        ConcurrentSkipListSet<Entry> partition = partitions.get(key);
+        if (partition != null) {
+            partition.remove(entry);
+            if (partition.isEmpty()) {
+                partitions.remove(key);
+            }
+        }
+    }
+
+    private static final class Entry {
+        private final int filmId;
+
+        private final int rate;
+
+        private final int year;
+
+        private final int[] genreIds;
+
+        private Entry(int filmId, int rate, int year, int[] genreIds) {
+            this.filmId = filmId;
+            this.rate = rate;
+            this.year = year;
+            this.genreIds = genreIds;
+        }
+    }
+}
@@ -1,42 +1,87 @@
 package ru.yandex.practicum.filmorate.repository.film;
 
-import lombok.AllArgsConstructor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Primary;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Component;
 import org.springframework.web.server.ResponseStatusException;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.CacheStats;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmPage;
 import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.repository.EntityCache;
+import ru.yandex.practicum.filmorate.repository.IdBitmap;
 import ru.yandex.practicum.filmorate.repository.genre.GenreFilmRepository;
-import ru.yandex.practicum.filmorate.repository.like.LikeFilmsRepository;
+import ru.yandex.practicum.filmorate.repository.like.LikeCounter;
+import ru.yandex.practicum.filmorate.repository.like.LikeMatrix;
 import ru.yandex.practicum.filmorate.repository.rating.RatingMPARepository;
 
+import javax.annotation.PostConstruct;
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
 import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
+import static ru.yandex.practicum.filmorate.repository.ModelMapper.INSERT_FILM_SQL;
 import static ru.yandex.practicum.filmorate.repository.ModelMapper.createInsertFilmStatement;
+import static ru.yandex.practicum.filmorate.repository.ModelMapper.extractorStreamFilms;
 import static ru.yandex.practicum.filmorate.repository.ModelMapper.mapperGetFilms;
+import static ru.yandex.practicum.filmorate.repository.ModelMapper.setInsertFilmParameters;
+import static ru.yandex.practicum.filmorate.repository.TransactionHooks.afterCommit;
+import static ru.yandex.practicum.filmorate.repository.TransactionHooks.afterCompletion;
 
 @Component
 @Primary
-@AllArgsConstructor
+@RequiredArgsConstructor
 public class FilmRepository {
 
+    public static final int MAX_PAGE_SIZE = 100;
+
     private final JdbcTemplate jdbcTemplate;
 
     private final GenreFilmRepository genreDbStorage;
 
-    private final RatingMPARepository ratingMpaDbStorage;
+    private final RatingMPARepository ratingMpaStorage;
+
+    private final FilmAssembler filmAssembler;
+
+    private final FilmPopularityIndex popularityIndex;
+
+    private final FilmSearchIndex searchIndex;
+
+    private final LikeCounter likeCounter;
 
-    private final LikeFilmsRepository likeFilms;
+    private final EntityCache<Integer, Film> filmCache;
+
+    private final LikeMatrix likeMatrix;
+
+    @Value("${filmorate.films.stream.fetch-size:500}")
+    private final int streamFetchSize;
+
+    private final IdBitmap filmIds = new IdBitmap();
+
+    @PostConstruct
+    public void loadIds() {
+        BitSet ids = new BitSet();
+        jdbcTemplate.query("SELECT id FROM films", (RowCallbackHandler) rs -> ids.set(rs.getInt("id")));
+        filmIds.reset(ids);
+    }
 
     public Film add(Film film) {
         if (film == null) {
@@ -58,61 +103,132 @@ public class FilmRepository {
         int generatedId = keyHolder.getKey().intValue();
         film.setId(generatedId);
 
-        if (genreIds.length > 0) {
-            String insertGenreSql = "INSERT INTO genre_film (id_film, id_genre) VALUES (?, ?)";
-            for (Integer genreId : genreIds) {
-                jdbcTemplate.update(insertGenreSql, generatedId, genreId);
-            }
-        }
+        film.setGenres(genreDbStorage.saveForFilm(generatedId, film.getGenres()));
 
-        LinkedHashSet<Genre> filmGenres = genreDbStorage.getForFilm(generatedId);
-        film.setGenres(filmGenres);
+        afterCommit(() -> {
+            filmIds.add(generatedId);
+            popularityIndex.put(film);
+            searchIndex.put(generatedId, film.getName(), film.getDescription());
+        });
 
         return film;
     }
 
+    public List<Film> addAll(List<Film> films) {
+        if (films.isEmpty()) {
+            return films;
+        }
+
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (PreparedStatement ps = connection.prepareStatement(INSERT_FILM_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                for (Film film : films) {
+                    setInsertFilmParameters(ps, film);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+
+                try (ResultSet keys = ps.getGeneratedKeys()) {
+                    int index = 0;
+                    while (keys.next()) {
+                        films.get(index++).setId(keys.getInt(1));
+                    }
+                }
+            }
+            return null;
+        });
+
+        List<Object[]> genreRows = new ArrayList<>();
+        for (Film film : films) {
+            if (film.getGenres() != null) {
+                for (Genre genre : film.getGenres()) {
+                    genreRows.add(new Object[]{film.getId(), genre.getId()});
+                }
+            }
+        }
+        if (!genreRows.isEmpty()) {
+            jdbcTemplate.batchUpdate("INSERT INTO genre_film (id_film, id_genre) VALUES (?, ?)", genreRows);
+        }
+
+        afterCommit(() -> films.forEach(film -> {
+            filmIds.add(film.getId());
+            popularityIndex.put(film);
+            searchIndex.put(film.getId(), film.getName(), film.getDescription());
+        }));
+        return films;
+    }
+
     public List<Film> getAll() {
-        String selectSql = "SELECT f.id, f.name, f.description, f.release_date, f.duration, f.rating, f.id_ratingMPA, " +
-                "lf.id_film AS like_film_id, COUNT(lf.id_film) AS like_count, gf.id_genre, g.name_genre, rm.name_MPA " +
+        String selectSql = "SELECT f.id, f.name, f.description, f.release_date, f.duration, f.rating, f.rating_version, f.id_ratingMPA, " +
+                "gf.id_genre " +
                 "FROM films f " +
-                "LEFT JOIN like_film lf ON f.id = lf.id_film " +
                 "LEFT JOIN genre_film gf ON f.id = gf.id_film " +
-                "LEFT JOIN genre g ON gf.id_genre = g.id_genre " +
-                "LEFT JOIN ratingMPA rm ON f.id_ratingMPA = rm.id_ratingMPA " +
-                "GROUP BY f.id, f.name, f.description, f.release_date, f.duration, f.rating, f.id_ratingMPA, " +
-                "lf.id_film, gf.id_genre, g.name_genre, rm.name_MPA " +
                 "ORDER BY f.id, gf.id_genre";
 
-        return jdbcTemplate.query(selectSql, mapperGetFilms()).stream().findFirst().orElse(new ArrayList<>());
+        List<Film> films = jdbcTemplate.query(selectSql, mapperGetFilms(ratingMpaStorage::getById, genreDbStorage::getById)).stream().findFirst().orElse(new ArrayList<>());
+        films.forEach(likeCounter::applyPending);
+        return films;
+    }
+
+    public int streamAll(Consumer<Film> consumer) {
+        String selectSql = "SELECT f.id, f.name, f.description, f.release_date, f.duration, f.rating, f.rating_version, f.id_ratingMPA, " +
+                "gf.id_genre " +
+                "FROM films f " +
+                "LEFT JOIN genre_film gf ON f.id = gf.id_film " +
+                "ORDER BY f.id, gf.id_genre";
+
+        Integer count = jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(selectSql,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(streamFetchSize);
+            return ps;
+        }, extractorStreamFilms(ratingMpaStorage::getById, genreDbStorage::getById, film -> consumer.accept(likeCounter.applyPending(film))));
+        return count != null ? count : 0;
+    }
+
+    public FilmPage getPage(Integer afterId, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        String selectSql = "SELECT f.id, f.name, f.description, f.release_date, f.duration, f.rating, f.rating_version, f.id_ratingMPA, " +
+                "gf.id_genre " +
+                "FROM (SELECT * FROM films WHERE id > ? ORDER BY id LIMIT ?) f " +
+                "LEFT JOIN genre_film gf ON f.id = gf.id_film " +
+                "ORDER BY f.id, gf.id_genre";
+
+        List<Film> films = jdbcTemplate.query(selectSql, mapperGetFilms(ratingMpaStorage::getById, genreDbStorage::getById), afterId != null ? afterId : 0, pageSize + 1)
+                .stream().findFirst().orElse(new ArrayList<>());
+        films.forEach(likeCounter::applyPending);
+
+        Integer nextCursor = null;
+        if (films.size() > pageSize) {
+            films = new ArrayList<>(films.subList(0, pageSize));
+            nextCursor = films.get(pageSize - 1).getId();
+        }
+        return new FilmPage(films, nextCursor);
     }
 
     public Film update(Film updatedFilm) {
-        String updateSql = "UPDATE films SET duration = ?, name = ?, description = ?, rating = ?, release_date = ?, id_ratingMPA = ? WHERE id = ?";
+        String updateSql = "UPDATE films SET duration = ?, name = ?, description = ?, rating = ?, rating_version = ?, " +
+                "release_date = ?, id_ratingMPA = ? WHERE id = ?";
 
         try {
+            long ratingVersion = likeCounter.overrideRate(updatedFilm.getId());
             jdbcTemplate.update(updateSql,
                     updatedFilm.getDuration(),
                     updatedFilm.getName(),
                     updatedFilm.getDescription(),
                     updatedFilm.getRate(),
+                    ratingVersion,
                     Timestamp.valueOf(updatedFilm.getReleaseDate().atStartOfDay()),
                     updatedFilm.getMpa().getId(),
                     updatedFilm.getId());
 
-            String deleteGenresSql = "DELETE FROM genre_film WHERE id_film = ?";
-            jdbcTemplate.update(deleteGenresSql, updatedFilm.getId());
-
-            if (updatedFilm.getGenres() != null && !updatedFilm.getGenres().isEmpty()) {
-                String insertGenreSql = "INSERT INTO genre_film (id_film, id_genre) VALUES (?, ?)";
-                for (Genre genre : updatedFilm.getGenres()) {
-                    if (!isExistGenreFilm(updatedFilm.getId(), genre.getId())) {
-                        jdbcTemplate.update(insertGenreSql, updatedFilm.getId(), genre.getId());
-                    }
-                }
-            }
+            updatedFilm.setGenres(genreDbStorage.saveForFilm(updatedFilm.getId(), updatedFilm.getGenres()));
 
-            LinkedHashSet<Genre> filmGenres = genreDbStorage.getForFilm(updatedFilm.getId());
-            updatedFilm.setGenres(filmGenres);
+            int filmId = updatedFilm.getId();
+            afterCommit(() -> {
+                popularityIndex.put(updatedFilm);
+                searchIndex.put(filmId, updatedFilm.getName(), updatedFilm.getDescription());
+            });
+            afterCompletion(() -> filmCache.invalidate(filmId));
 
             return updatedFilm;
         } catch (EmptyResultDataAccessException e) {
@@ -121,25 +237,82 @@ public class FilmRepository {
     }
 
     public Film getById(Integer filmId) {
-        String selectSql = "SELECT f.id, f.duration, f.name, f.description, f.rating, f.release_date, f.id_ratingMPA FROM films f WHERE f.id = ?";
-        try {
-            Film film = jdbcTemplate.queryForObject(selectSql, (rs, rowNum) ->
-                    new Film(
-                            rs.getInt("id"),
-                            rs.getString("name"),
-                            rs.getString("description"),
-                            rs.getTimestamp("release_date").toLocalDateTime().toLocalDate(),
-                            rs.getInt("duration"),
-                            likeFilms.getLikeCount(rs.getInt("id")),
-                            rs.getInt("rating"),
-                            genreDbStorage.getForFilm(rs.getInt("id")),
-                            ratingMpaDbStorage.getById(rs.getInt("id_ratingMPA"))
-                    ), filmId);
-
-            return film;
-        } catch (EmptyResultDataAccessException e) {
+        if (filmId == null || !filmIds.contains(filmId)) {
             throw new NotFoundException("Фильм с ID " + filmId + " не найден");
         }
+        Film film = filmCache.get(filmId, id -> {
+            List<Film> films = filmAssembler.assembleWithLikes(List.of(id));
+            return films.isEmpty() ? null : films.get(0);
+        });
+        if (film == null) {
+            throw new NotFoundException("Фильм с ID " + filmId + " не найден");
+        }
+        return film;
+    }
+
+    public List<Film> getByIds(Collection<Integer> ids) {
+        Map<Integer, Film> found = new HashMap<>();
+        List<Integer> missing = new ArrayList<>();
+        for (Integer filmId : new LinkedHashSet<>(ids)) {
+            if (filmId == null || !filmIds.contains(filmId)) {
+                continue;
+            }
+            Film film = filmCache.getIfPresent(filmId);
+            if (film != null) {
+                found.put(filmId, film);
+            } else {
+                missing.add(filmId);
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            long stamp = filmCache.stamp();
+            for (Film film : filmAssembler.assembleWithLikes(missing)) {
+                filmCache.put(film.getId(), film, stamp);
+                found.put(film.getId(), film);
+            }
+        }
+
+        List<Film> result = new ArrayList<>(found.size());
+        for (Integer filmId : new LinkedHashSet<>(ids)) {
+            Film film = found.get(filmId);
+            if (film != null) {
+                result.add(film);
+            }
+        }
+        return result;
+    }
+
+    public CacheStats getCacheStats() {
+        return filmCache.stats();
+    }
+
+    public List<Film> getPopular(int count) {
+        return getPopular(count, null, null);
+    }
+
+    public List<Film> getPopular(int count, Integer genreId, Integer year) {
+        // Кэш фильмов сбрасывается при лайке и изменении фильма, поэтому горячий топ отдаётся без запросов к базе
+        return getByIds(popularityIndex.top(count, genreId, year));
+    }
+
+    public FilmPage search(String query, int offset, int limit) {
+        List<Integer> ids = searchIndex.search(query, offset, limit);
+        Integer nextCursor = null;
+        if (ids.size() > limit) {
+            ids = ids.subList(0, limit);
+            nextCursor = offset + limit;
+        }
+        return new FilmPage(filmAssembler.assemble(ids), nextCursor);
+    }
+
+    public List<Film> getRecommendations(int userId, int limit) {
+        int[] filmIds = likeMatrix.recommendFilms(userId, limit);
+        List<Integer> ids = new ArrayList<>(filmIds.length);
+        for (int filmId : filmIds) {
+            ids.add(filmId);
+        }
+        return filmAssembler.assemble(ids);
     }
 
     public Film remove(Integer filmId) {
@@ -151,16 +324,24 @@ public class FilmRepository {
 
         String deleteFilmSql = "DELETE FROM films WHERE id = ?";
         jdbcTemplate.update(deleteFilmSql, filmId);
+        afterCommit(() -> {
+            filmIds.remove(filmId);
+            likeMatrix.removeFilm(filmId);
+            likeCounter.discard(filmId);
+            popularityIndex.remove(filmId);
+            searchIndex.remove(filmId);
+        });
+        afterCompletion(() -> filmCache.invalidate(filmId));
 
         return filmToRemove;
     }
 
+    public BitSet getIdSet() {
+        return filmIds.toBitSet();
+    }
+
     public boolean isExist(int id) {
-        String sql = "SELECT EXISTS (SELECT id " +
-                "FROM films " +
-                "WHERE id = ?)";
-        boolean isExist = jdbcTemplate.queryForObject(sql, Boolean.class, id);
-        return isExist;
+        return filmIds.contains(id);
     }
 
     public boolean isExistGenreFilm(int idFilm, int idGenre) {
@@ -0,0 +1,257 @@
+package ru.yandex.practicum.filmorate.repository.film;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.repository.IntCountMap;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Инвертированный индекс по названию и описанию фильмов. Текст приводится к нижнему регистру, «ё» заменяется
+ * на «е», токены — последовательности букв и цифр. Совпадение токена целиком весит вдвое больше, чем
+ * вхождение запроса внутрь токена; такие токены находятся через индекс триграмм. Итоговая релевантность
+ * смешивается с рейтингом фильма.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FilmSearchIndex {
+
+    private static final int NAME_WEIGHT = 3;
+
+    private static final int DESCRIPTION_WEIGHT = 1;
+
+    private static final int EXACT_FACTOR = 2;
+
+    private static final int MAX_EXPANDED_TOKENS = 200;
+
+    private static final Comparator<Hit> RANKING = Comparator.comparingDouble((Hit hit) -> hit.score).reversed()
+            .thenComparingInt(hit -> hit.filmId);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final FilmPopularityIndex popularityIndex;
+
+    @Value("${filmorate.search.like-weight:0.5}")
+    private final double likeWeight;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<String, IntCountMap> postings = new HashMap<>();
+
+    private final Map<String, Set<String>> tokensByTrigram = new HashMap<>();
+
+    private final Map<Integer, Map<String, Integer>> documents = new HashMap<>();
+
+    @PostConstruct
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            tokensByTrigram.clear();
+            documents.clear();
+            jdbcTemplate.query("SELECT id, name, description FROM films", (RowCallbackHandler) rs ->
+                    index(rs.getInt("id"), rs.getString("name"), rs.getString("description")));
+            log.info("Поисковый индекс фильмов построен: {} фильмов, {} токенов", documents.size(), postings.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void put(int filmId, String name, String description) {
+        lock.writeLock().lock();
+        try {
+            unindex(filmId);
+            index(filmId, name, description);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(int filmId) {
+        lock.writeLock().lock();
+        try {
+            unindex(filmId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Возвращает id фильмов страницы, упорядоченные по убыванию релевантности; если результатов больше,
+     * список содержит limit + 1 элемент.
+     */
+    public List<Integer> search(String query, int offset, int limit) {
+        Set<String> queryTokens = new LinkedHashSet<>(tokenize(query));
+        IntCountMap relevance = new IntCountMap(64);
+        lock.readLock().lock();
+        try {
+            for (String queryToken : queryTokens) {
+                IntCountMap best = new IntCountMap(16);
+                IntCountMap exact = postings.get(queryToken);
+                if (exact != null) {
+                    exact.forEach((filmId, weight) -> raise(best, filmId, weight * EXACT_FACTOR));
+                }
+                for (String token : expand(queryToken)) {
+                    postings.get(token).forEach((filmId, weight) -> raise(best, filmId, weight));
+                }
+                best.forEach(relevance::add);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        if (offset >= relevance.size()) {
+            return new ArrayList<>();
+        }
+        // В long: при большом смещении offset + limit не помещается в int
+        int wanted = (int) Math.min((long) offset + limit + 1, relevance.size());
+        PriorityQueue<Hit> heap = new PriorityQueue<>(wanted, RANKING.reversed());
+        relevance.forEach((filmId, score) -> {
+            Hit hit = new Hit(filmId, score + likeWeight * Math.log1p(Math.max(popularityIndex.rateOf(filmId), 0)));
+            if (heap.size() < wanted) {
+                heap.add(hit);
+            } else if (RANKING.compare(hit, heap.peek()) < 0) {
+                heap.poll();
+                heap.add(hit);
+            }
+        });
+
+        List<Hit> hits = new ArrayList<>(heap);
+        hits.sort(RANKING);
+        List<Integer> page = new ArrayList<>();
+        for (int i = offset; i < hits.size(); i++) {
+            page.add(hits.get(i).filmId);
+        }
+        return page;
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        StringBuilder current = new StringBuilder();
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                char lower = Character.toLowerCase(c);
+                current.append(lower == 'ё' ? 'е' : lower);
+            } else if (current.length() > 0) {
+                tokens.add(current.toString());
+                current.setLength(0);
+            }
+        }
+        if (current.length() > 0) {
+            tokens.add(current.toString());
+        }
+        return tokens;
+    }
+
+    private void index(int filmId, String name, String description) {
+        Map<String, Integer> terms = new HashMap<>();
+        tokenize(name).forEach(token -> terms.merge(token, NAME_WEIGHT, Integer::sum));
+        tokenize(description).forEach(token -> terms.merge(token, DESCRIPTION_WEIGHT, Integer::sum));
+        terms.forEach((token, weight) -> {
+            IntCountMap films = postings.get(token);
+            if (films == null) {
+                films = new IntCountMap(4);
+                postings.put(token, films);
+                for (String trigram : trigrams(token)) {
+                    tokensByTrigram.computeIfAbsent(trigram, key -> new HashSet<>()).add(token);
+                }
+            }
+            films.add(filmId, weight);
+        });
+        documents.put(filmId, terms);
+    }
+
+    private void unindex(int filmId) {
+        Map<String, Integer> terms = documents.remove(filmId);
+        if (terms == null) {
+            return;
+        }
+        for (String token : terms.keySet()) {
+            IntCountMap films = postings.get(token);
+            films.remove(filmId);
+            if (films.size() == 0) {
+                postings.remove(token);
+                for (String trigram : trigrams(token)) {
+                    Set<String> tokens = tokensByTrigram.get(trigram);
+                    tokens.remove(token);
+                    if (tokens.isEmpty()) {
+                        tokensByTrigram.remove(trigram);
+                    }
+                }
+            }
+        }
+    }
+
+    private List<String> expand(String queryToken) {
+        List<String> expanded = new ArrayList<>();
+        List<String> queryTrigrams = trigrams(queryToken);
+        if (queryTrigrams.isEmpty()) {
+            return expanded;
+        }
+        Set<String> smallest = null;
+        for (String trigram : queryTrigrams) {
+            Set<String> tokens = tokensByTrigram.get(trigram);
+            if (tokens == null) {
+                return expanded;
+            }
+            if (smallest == null || tokens.size() < smallest.size()) {
+                smallest = tokens;
+            }
+        }
+        for (String token : smallest) {
+            if (!token.equals(queryToken) && token.contains(queryToken)) {
+                expanded.add(token);
+                if (expanded.size() == MAX_EXPANDED_TOKENS) {
+                    break;
+                }
+            }
+        }
+        return expanded;
+    }
+
+    private static List<String> trigrams(String token) {
+        List<String> trigrams = new ArrayList<>();
+        for (int i = 0; i + 3 <= token.length(); i++) {
+            trigrams.add(token.substring(i, i + 3));
+        }
+        return trigrams;
+    }
+
+    private static void raise(IntCountMap best, int filmId, int weight) {
+        int current = best.get(filmId);
+        if (weight > current) {
+            best.add(filmId, weight - current);
+        }
+    }
+
+    private static final class Hit {
+        private final int filmId;
+
+        private final double score;
+
+        private Hit(int filmId, double score) {
+            this.filmId = filmId;
+            this.score = score;
+        }
+    }
+}
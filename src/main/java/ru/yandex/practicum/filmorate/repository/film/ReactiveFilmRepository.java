@@ -0,0 +1,67 @@
+package ru.yandex.practicum.filmorate.repository.film;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.repository.ModelMapper;
+import ru.yandex.practicum.filmorate.repository.genre.GenreFilmRepository;
+import ru.yandex.practicum.filmorate.repository.like.LikeCounter;
+import ru.yandex.practicum.filmorate.repository.rating.RatingMPARepository;
+
+/**
+ * Неблокирующее чтение фильмов через R2DBC. Запросы те же, что у {@link FilmRepository}, строка в фильм
+ * превращается тем же {@link ModelMapper#mapFilm}, рейтинги MPA и жанры берутся из тех же справочников:
+ * одна строка на жанр, строки одного фильма идут подряд и склеиваются {@link ModelMapper#mergeFilmRows}.
+ */
+@Component
+@RequiredArgsConstructor
+public class ReactiveFilmRepository {
+    private static final String SELECT_COLUMNS = "SELECT f.id, f.name, f.description, f.release_date, f.duration, " +
+            "f.rating, f.rating_version, f.id_ratingMPA, gf.id_genre ";
+
+    private static final String JOINS = "LEFT JOIN genre_film gf ON f.id = gf.id_film ";
+
+    private final DatabaseClient databaseClient;
+
+    private final LikeCounter likeCounter;
+
+    private final GenreFilmRepository genreStorage;
+
+    private final RatingMPARepository ratingMpaStorage;
+
+    public Flux<Film> findAll(int afterId, Integer limit) {
+        DatabaseClient.GenericExecuteSpec spec;
+        if (limit != null) {
+            spec = databaseClient.sql(SELECT_COLUMNS +
+                            "FROM (SELECT * FROM films WHERE id > :afterId ORDER BY id LIMIT :limit) f " + JOINS +
+                            "ORDER BY f.id, gf.id_genre")
+                    .bind("limit", limit);
+        } else {
+            spec = databaseClient.sql(SELECT_COLUMNS + "FROM films f " + JOINS +
+                    "WHERE f.id > :afterId ORDER BY f.id, gf.id_genre");
+        }
+        return toFilms(spec.bind("afterId", afterId));
+    }
+
+    public Mono<Film> findById(int filmId) {
+        return toFilms(databaseClient.sql(SELECT_COLUMNS + "FROM films f " + JOINS +
+                        "WHERE f.id = :id ORDER BY gf.id_genre")
+                .bind("id", filmId))
+                .next();
+    }
+
+    private Flux<Film> toFilms(DatabaseClient.GenericExecuteSpec spec) {
+        return spec.map((row, metadata) -> {
+                    Film film = ModelMapper.mapFilm(row::get, ratingMpaStorage::getById);
+                    ModelMapper.addGenre(row::get, film, genreStorage::getById);
+                    return film;
+                })
+                .all()
+                .bufferUntilChanged(Film::getId)
+                .map(ModelMapper::mergeFilmRows)
+                .map(likeCounter::applyPending);
+    }
+}
@@ -0,0 +1,137 @@
+package ru.yandex.practicum.filmorate.repository.friend;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.repository.AdjacencyIndex;
+import ru.yandex.practicum.filmorate.repository.IdPairs;
+import ru.yandex.practicum.filmorate.repository.IntCountMap;
+
+import javax.annotation.PostConstruct;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Граф дружбы в памяти: для каждого пользователя хранятся отсортированные массивы id тех, кого он добавил
+ * в друзья, и тех, кто добавил его. Рекомендации друзей считаются по числу общих друзей,
+ * для пользователей с большим охватом подсчёт распараллеливается через fork-join.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FriendshipGraph {
+
+    private static final int SEQUENTIAL_FRIENDS = 64;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final AdjacencyIndex friends = new AdjacencyIndex();
+
+    @Value("${filmorate.friends.suggestions.parallel-threshold:50000}")
+    private final int parallelThreshold;
+
+    @PostConstruct
+    public void rebuild() {
+        long edges = friends.load(consumer ->
+                jdbcTemplate.query("SELECT id_user, id_friend FROM friends", (RowCallbackHandler) rs ->
+                        consumer.accept(IdPairs.pack(rs.getInt("id_user"), rs.getInt("id_friend")))));
+        log.info("Загружен граф дружбы: {} связей", edges);
+    }
+
+    public int[] friendsOf(int userId) {
+        return friends.forward(userId);
+    }
+
+    public int[] followersOf(int userId) {
+        return friends.backward(userId);
+    }
+
+    public boolean areFriends(int userId, int otherUserId) {
+        return friends.contains(userId, otherUserId) || friends.contains(otherUserId, userId);
+    }
+
+    public int[] commonFriends(int userId, int otherUserId) {
+        return AdjacencyIndex.intersect(friendsOf(userId), friendsOf(otherUserId));
+    }
+
+    public int[] suggestFriends(int userId, int limit) {
+        int[] direct = friendsOf(userId);
+        long visited = 0;
+        for (int friendId : direct) {
+            visited += friendsOf(friendId).length;
+        }
+        IntCountMap mutual = visited >= parallelThreshold
+                ? ForkJoinPool.commonPool().invoke(new MutualFriendsTask(direct, 0, direct.length))
+                : countMutualFriends(direct, 0, direct.length);
+        // Дружба засчитывается в любую сторону (см. areFriends), поэтому подписчиков тоже не предлагаем
+        int[] followers = followersOf(userId);
+        return mutual.top(limit, candidateId -> candidateId == userId
+                || Arrays.binarySearch(direct, candidateId) >= 0
+                || Arrays.binarySearch(followers, candidateId) >= 0);
+    }
+
+    public void add(int userId, int friendId) {
+        friends.add(userId, friendId);
+    }
+
+    public void addAll(List<int[]> friendships) {
+        friends.addAll(friendships);
+    }
+
+    public void remove(int userId, int friendId) {
+        friends.remove(userId, friendId);
+        friends.remove(friendId, userId);
+    }
+
+    public void removeUser(int userId) {
+        friends.removeFrom(userId);
+        friends.removeTo(userId);
+    }
+
+    private IntCountMap countMutualFriends(int[] direct, int from, int to) {
+        IntCountMap mutual = new IntCountMap(16);
+        for (int i = from; i < to; i++) {
+            for (int candidateId : friendsOf(direct[i])) {
+                mutual.add(candidateId, 1);
+            }
+        }
+        return mutual;
+    }
+
+    private final class MutualFriendsTask extends RecursiveTask<IntCountMap> {
+        private final int[] direct;
+
+        private final int from;
+
+        private final int to;
+
+        private MutualFriendsTask(int[] direct, int from, int to) {
+            this.direct = direct;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected IntCountMap compute() {
+            if (to - from <= SEQUENTIAL_FRIENDS) {
+                return countMutualFriends(direct, from, to);
+            }
+            int middle = (from + to) >>> 1;
+            MutualFriendsTask left = new MutualFriendsTask(direct, from, middle);
+            left.fork();
+            IntCountMap right = new MutualFriendsTask(direct, middle, to).compute();
+            IntCountMap merged = left.join();
+            if (merged.size() < right.size()) {
+                right.addAll(merged);
+                return right;
+            }
+            merged.addAll(right);
+            return merged;
+        }
+    }
+}
@@ -1,43 +1,104 @@
 package ru.yandex.practicum.filmorate.repository.genre;
 
-import lombok.AllArgsConstructor;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.repository.EntityCache;
+import ru.yandex.practicum.filmorate.repository.ReferenceTable;
 
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
 
+@Slf4j
 @Component
-@AllArgsConstructor
+@RequiredArgsConstructor
 public class GenreFilmRepository {
 
     private final JdbcTemplate jdbcTemplate;
 
+    private final EntityCache<Integer, Film> filmCache;
+
+    private volatile ReferenceTable<Genre> genres = new ReferenceTable<>(List.of(), Genre::getId);
+
+    @PostConstruct
+    public void reload() {
+        List<Genre> loaded = jdbcTemplate.query("SELECT id_genre, name_genre FROM genre ORDER BY id_genre",
+                (rs, rowNum) -> new Genre(rs.getInt("id_genre"), rs.getString("name_genre")));
+        genres = new ReferenceTable<>(loaded, Genre::getId);
+        // В кэшированных фильмах остались значения из прежнего справочника
+        filmCache.invalidateAll();
+        log.info("Загружено жанров: {}", loaded.size());
+    }
+
     public List<Genre> getAll() {
-        String selectSql = "SELECT id_genre, name_genre FROM genre";
-        return jdbcTemplate.query(selectSql, (rs, rowNum) ->
-                new Genre(rs.getInt("id_genre"), rs.getString("name_genre")));
+        return genres.getAll();
     }
 
     public Genre getById(Integer genreId) {
-        String selectSql = "SELECT id_genre, name_genre FROM genre WHERE id_genre = ?";
-        return jdbcTemplate.queryForObject(selectSql, (rs, rowNum) ->
-                new Genre(rs.getInt("id_genre"), rs.getString("name_genre")), genreId);
+        return genres.get(genreId);
     }
 
     public LinkedHashSet<Genre> getForFilm(Integer filmId) {
-        String selectSql = "SELECT g.id_genre, g.name_genre FROM genre g " +
-                "JOIN genre_film gf ON g.id_genre = gf.id_genre " +
-                "WHERE gf.id_film = ?";
+        String selectSql = "SELECT id_genre FROM genre_film WHERE id_film = ? ORDER BY id_genre";
+        ReferenceTable<Genre> table = genres;
         return new LinkedHashSet<>(jdbcTemplate.query(selectSql, (rs, rowNum) ->
-                new Genre(rs.getInt("id_genre"), rs.getString("name_genre")), filmId));
+                table.get(rs.getInt("id_genre")), filmId));
+    }
+
+    public LinkedHashSet<Genre> saveForFilm(Integer filmId, Collection<Genre> genres) {
+        Set<Integer> wantedIds = new TreeSet<>();
+        if (genres != null) {
+            genres.stream()
+                    .map(Genre::getId)
+                    .filter(Objects::nonNull)
+                    .forEach(wantedIds::add);
+        }
+
+        ReferenceTable<Genre> table = this.genres;
+        Set<Integer> currentIds = new HashSet<>(jdbcTemplate.queryForList(
+                "SELECT id_genre FROM genre_film WHERE id_film = ?", Integer.class, filmId));
+
+        List<Object[]> toInsert = new ArrayList<>();
+        LinkedHashSet<Genre> result = new LinkedHashSet<>();
+        for (Integer genreId : wantedIds) {
+            Genre genre = table.get(genreId);
+            if (genre == null) {
+                throw new NotFoundException(String.format("Жанра с таким id %d не существует.", genreId));
+            }
+            if (!currentIds.contains(genreId)) {
+                toInsert.add(new Object[]{filmId, genreId});
+            }
+            result.add(genre);
+        }
+
+        List<Object[]> toDelete = new ArrayList<>();
+        for (Integer genreId : currentIds) {
+            if (!wantedIds.contains(genreId)) {
+                toDelete.add(new Object[]{filmId, genreId});
+            }
+        }
+
+        if (!toDelete.isEmpty()) {
+            jdbcTemplate.batchUpdate("DELETE FROM genre_film WHERE id_film = ? AND id_genre = ?", toDelete);
+        }
+        if (!toInsert.isEmpty()) {
+            jdbcTemplate.batchUpdate("INSERT INTO genre_film (id_film, id_genre) VALUES (?, ?)", toInsert);
+        }
+        return result;
     }
 
     public boolean isExist(int id) {
-        String sql = "SELECT EXISTS (SELECT id_genre FROM genre g WHERE id_genre = ?)";
-        boolean isExist = jdbcTemplate.queryForObject(sql, Boolean.class, id);
-        return isExist;
+        return genres.contains(id);
     }
 }
-
@@ -0,0 +1,163 @@
+package ru.yandex.practicum.filmorate.repository.like;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+import static ru.yandex.practicum.filmorate.repository.TransactionHooks.afterCommit;
+
+/**
+ * Накапливает изменения рейтинга фильмов от лайков в памяти и периодически сбрасывает их
+ * в films.rating пакетом. Сами записи like_film пишутся сразу, здесь копится только счётчик.
+ * <p>
+ * Для каждого фильма ведётся неубывающая сумма всех изменений ({@link LongAdder}, без блокировок) и отметка:
+ * какая часть суммы уже лежит в films.rating и с каким films.rating_version. Сброс пишет разницу одной
+ * транзакцией вместе с новым номером версии и только в строки, версию которых он ожидает; явная перезапись
+ * рейтинга ставит строке свою версию, поэтому сброс, начатый до неё, строку не трогает. Читатель по версии
+ * прочитанной строки понимает, какая часть суммы в ней уже учтена, и прибавляет остальное.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LikeCounter {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final Map<Integer, Counter> counters = new ConcurrentHashMap<>();
+
+    private final AtomicLong versions = new AtomicLong();
+
+    private volatile long startVersion;
+
+    @PostConstruct
+    public void init() {
+        Long lastVersion = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(rating_version), 0) FROM films", Long.class);
+        startVersion = lastVersion != null ? lastVersion : 0;
+        versions.set(startVersion);
+    }
+
+    public void add(int filmId, int delta) {
+        counters.computeIfAbsent(filmId, id -> new Counter(startVersion)).total.add(delta);
+    }
+
+    public int getPending(int filmId) {
+        Counter counter = counters.get(filmId);
+        return counter != null ? (int) (counter.total.sum() - counter.written.get().sum) : 0;
+    }
+
+    public Film applyPending(Film film) {
+        Counter counter = counters.get(film.getId());
+        if (counter == null) {
+            return film;
+        }
+        long rowVersion = film.getRatingVersion() != null ? film.getRatingVersion() : 0;
+        // Сброс сначала переносит отметку в written и только потом убирает inFlight, поэтому читать — в обратном порядке
+        Mark inFlight = counter.inFlight;
+        Mark written = counter.written.get();
+        long delta = counter.total.sum() - (inFlight != null && inFlight.version == rowVersion ? inFlight.sum : written.sum);
+        if (delta != 0) {
+            film.setRate((film.getRate() != null ? film.getRate() : 0) + (int) delta);
+        }
+        return film;
+    }
+
+    /**
+     * Выдаёт версию для UPDATE, который явно задаёт films.rating. После коммита накопленное для фильма
+     * считается учтённым: его уже учёл клиент, а сброс, начатый раньше, строку с этой версией пропустит.
+     */
+    public long overrideRate(int filmId) {
+        long version = versions.incrementAndGet();
+        afterCommit(() -> {
+            Counter counter = counters.computeIfAbsent(filmId, id -> new Counter(startVersion));
+            counter.written.set(new Mark(version, counter.total.sum()));
+        });
+        return version;
+    }
+
+    public void discard(int filmId) {
+        counters.remove(filmId);
+    }
+
+    @Scheduled(fixedDelayString = "${filmorate.likes.flush-interval-ms:1000}")
+    public synchronized void flush() {
+        long version = versions.incrementAndGet();
+        List<Counter> flight = new ArrayList<>();
+        List<Mark> expected = new ArrayList<>();
+        List<Object[]> batchArgs = new ArrayList<>();
+        counters.forEach((filmId, counter) -> {
+            Mark written = counter.written.get();
+            long total = counter.total.sum();
+            if (total != written.sum) {
+                counter.inFlight = new Mark(version, total);
+                flight.add(counter);
+                expected.add(written);
+                batchArgs.add(new Object[]{total - written.sum, version, filmId, written.version});
+            }
+        });
+        if (batchArgs.isEmpty()) {
+            return;
+        }
+
+        String updateSql = "UPDATE films SET rating = COALESCE(rating, 0) + ?, rating_version = ? " +
+                "WHERE id = ? AND rating_version <= ?";
+        try {
+            int[] updated = transactionTemplate.execute(status -> jdbcTemplate.batchUpdate(updateSql, batchArgs));
+            for (int i = 0; i < flight.size(); i++) {
+                // Строку могли перезаписать явно: тогда её отметка уже новее и сброс её не трогал
+                if (updated == null || updated[i] != 0) {
+                    flight.get(i).written.compareAndSet(expected.get(i), flight.get(i).inFlight);
+                }
+            }
+        } finally {
+            flight.forEach(counter -> counter.inFlight = null);
+        }
+        log.debug("Сброшены изменения рейтинга для {} фильмов", batchArgs.size());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private static final class Counter {
+        private final LongAdder total = new LongAdder();
+
+        private final AtomicReference<Mark> written;
+
+        private volatile Mark inFlight;
+
+        private Counter(long version) {
+            this.written = new AtomicReference<>(new Mark(version, 0));
+        }
+    }
+
+    /**
+     * Часть суммы изменений, учтённая в строке фильма с данной версией.
+     */
+    private static final class Mark {
+        private final long version;
+
+        private final long sum;
+
+        private Mark(long version, long sum) {
+            this.version = version;
+            this.sum = sum;
+        }
+    }
+}
@@ -2,23 +2,50 @@ package ru.yandex.practicum.filmorate.repository.like;
 
 import lombok.AllArgsConstructor;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.repository.EntityCache;
+import ru.yandex.practicum.filmorate.repository.IdPairs;
+import ru.yandex.practicum.filmorate.repository.film.FilmPopularityIndex;
 
 import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongConsumer;
+
+import static ru.yandex.practicum.filmorate.repository.TransactionHooks.afterCommit;
+import static ru.yandex.practicum.filmorate.repository.TransactionHooks.afterCompletion;
 
 @Component
 @AllArgsConstructor
 public class LikeFilmsRepository {
     private final JdbcTemplate jdbcTemplate;
 
+    private final FilmPopularityIndex popularityIndex;
+
+    private final LikeCounter likeCounter;
+
+    private final EntityCache<Integer, Film> filmCache;
+
+    private final LikeMatrix likeMatrix;
+
+    private final LikeFilter likeFilter;
+
     public void addLike(Integer filmId, Integer userId) {
         String insertSql = "INSERT INTO like_film (id_film, id_user) VALUES (?, ?)";
         jdbcTemplate.update(insertSql, filmId, userId);
+        likeFilter.add(filmId, userId);
+        afterCommit(() -> likeMatrix.add(filmId, userId));
     }
 
     public void removeLike(Integer filmId, Integer userId) {
         String deleteSql = "DELETE FROM like_film WHERE id_film = ? AND id_user = ?";
         jdbcTemplate.update(deleteSql, filmId, userId);
+        afterCommit(() -> {
+            likeMatrix.remove(filmId, userId);
+            likeFilter.markRemoved(1);
+        });
     }
 
     public void dislikeForFilm(int filmId, int userId) {
@@ -32,8 +59,11 @@ public class LikeFilmsRepository {
     }
 
     public void minusRateForFilm(int filmId) {
-        String updateSql = "UPDATE films SET rating = rating + 1 WHERE id = ?";
-        jdbcTemplate.update(updateSql, filmId);
+        afterCommit(() -> {
+            likeCounter.add(filmId, -1);
+            popularityIndex.adjust(filmId, -1);
+        });
+        afterCompletion(() -> filmCache.invalidate(filmId));
     }
 
     public void likeForFilm(int filmId, int userId) {
@@ -41,32 +71,64 @@ public class LikeFilmsRepository {
         plusRateForFilm(filmId);
     }
 
+    public void likeForFilms(List<int[]> likes) {
+        String insertSql = "INSERT INTO like_film (id_film, id_user) VALUES (?, ?)";
+        jdbcTemplate.batchUpdate(insertSql, likes, likes.size(), (ps, like) -> {
+            ps.setInt(1, like[0]);
+            ps.setInt(2, like[1]);
+        });
+        likeFilter.addAll(likes);
+        afterCommit(() -> likeMatrix.addAll(likes));
+        adjustRatesForFilms(likes, 1);
+    }
+
+    public void dislikeForFilms(List<int[]> likes) {
+        String deleteSql = "DELETE FROM like_film WHERE id_film = ? AND id_user = ?";
+        jdbcTemplate.batchUpdate(deleteSql, likes, likes.size(), (ps, like) -> {
+            ps.setInt(1, like[0]);
+            ps.setInt(2, like[1]);
+        });
+        afterCommit(() -> {
+            likeMatrix.removeAll(likes);
+            likeFilter.markRemoved(likes.size());
+        });
+        adjustRatesForFilms(likes, -1);
+    }
+
+    private void adjustRatesForFilms(List<int[]> likes, int sign) {
+        Map<Integer, Integer> deltaPerFilm = new HashMap<>();
+        for (int[] like : likes) {
+            deltaPerFilm.merge(like[0], sign, Integer::sum);
+        }
+        afterCommit(() -> deltaPerFilm.forEach((filmId, delta) -> {
+            likeCounter.add(filmId, delta);
+            popularityIndex.adjust(filmId, delta);
+        }));
+        afterCompletion(() -> deltaPerFilm.keySet().forEach(filmCache::invalidate));
+    }
+
+    public void forEachLike(LongConsumer consumer) {
+        String sql = "SELECT id_film, id_user FROM like_film";
+        jdbcTemplate.query(sql, (RowCallbackHandler) rs ->
+                consumer.accept(IdPairs.pack(rs.getInt("id_film"), rs.getInt("id_user"))));
+    }
+
     public void plusRateForFilm(int filmId) {
-        String updateSql = "UPDATE films SET rating = rating + 1 WHERE id = ?";
-        jdbcTemplate.update(updateSql, filmId);
+        afterCommit(() -> {
+            likeCounter.add(filmId, 1);
+            popularityIndex.adjust(filmId, 1);
+        });
+        afterCompletion(() -> filmCache.invalidate(filmId));
     }
 
+    /**
+     * Возвращает {@code true}, если лайка ещё нет. Точный отрицательный ответ фильтра обходится без запроса к базе.
+     */
     public boolean isExistLike(int filmId, int userId) {
-        HashMap<Integer, Integer> likeMap = new HashMap<>();
-        String sql = "SELECT * FROM like_film lf WHERE lf.id_film = ? AND lf.id_user = ?";
-        jdbcTemplate.query(sql, (rs) -> {
-            Integer fetchedFilmId = rs.getInt("ID_FILM");
-            Integer fetchedUserId = rs.getInt("id_user");
-            if (fetchedFilmId != null && fetchedUserId != null && fetchedFilmId > 0 && fetchedUserId > 0) {
-                likeMap.put(fetchedFilmId, fetchedUserId);
-            }
-        }, filmId, userId);
-
-        if (likeMap.containsKey(filmId)) {
-            if (likeMap.get(filmId).equals(userId)) {
-                return false;
-            } else {
-                return true;
-            }
-        } else {
+        if (!likeFilter.mightContain(filmId, userId)) {
             return true;
         }
+        String sql = "SELECT EXISTS (SELECT 1 FROM like_film WHERE id_film = ? AND id_user = ?)";
+        return !Boolean.TRUE.equals(jdbcTemplate.queryForObject(sql, Boolean.class, filmId, userId));
     }
 }
-
-
@@ -0,0 +1,116 @@
+package ru.yandex.practicum.filmorate.repository.like;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.repository.IdPairs;
+import ru.yandex.practicum.filmorate.repository.LongBloomFilter;
+
+import javax.annotation.PostConstruct;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static ru.yandex.practicum.filmorate.repository.TransactionHooks.afterCommit;
+
+/**
+ * Фильтр Блума по парам (фильм, пользователь) из like_film. Пара добавляется сразу при записи и ещё раз после
+ * коммита: лишняя пара после отката даёт только ложное срабатывание, а повтор после коммита не даёт потерять её,
+ * если фильтр перестраивался, пока транзакция была открыта. Удалённые лайки из фильтра не убрать, поэтому
+ * при переполнении или накоплении удалений он перестраивается.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LikeFilter {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${filmorate.likes.filter.false-positive-rate:0.01}")
+    private final double falsePositiveRate;
+
+    @Value("${filmorate.likes.filter.min-capacity:100000}")
+    private final long minCapacity;
+
+    private final AtomicLong entries = new AtomicLong();
+
+    private final AtomicLong removed = new AtomicLong();
+
+    private volatile LongBloomFilter filter;
+
+    private volatile LongBloomFilter building;
+
+    private volatile long capacity;
+
+    @PostConstruct
+    public synchronized void rebuild() {
+        long likes = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM like_film", Long.class);
+        long nextCapacity = Math.max(minCapacity, likes * 2);
+        LongBloomFilter next = new LongBloomFilter(nextCapacity, falsePositiveRate);
+        // Пары, записанные во время чтения таблицы, попадут в оба фильтра
+        building = next;
+        entries.set(0);
+        removed.set(0);
+        jdbcTemplate.query("SELECT id_film, id_user FROM like_film", (RowCallbackHandler) rs -> {
+            next.add(IdPairs.pack(rs.getInt("id_film"), rs.getInt("id_user")));
+            entries.incrementAndGet();
+        });
+        filter = next;
+        capacity = nextCapacity;
+        building = null;
+        log.info("Построен фильтр лайков: {} лайков, {} бит, {} хеш-функций",
+                entries.get(), next.bitSize(), next.hashes());
+    }
+
+    @Scheduled(fixedDelayString = "${filmorate.likes.filter.check-interval-ms:60000}")
+    public void rebuildIfSaturated() {
+        if (entries.get() > capacity || removed.get() > capacity / 2) {
+            rebuild();
+        }
+    }
+
+    public boolean mightContain(int filmId, int userId) {
+        LongBloomFilter current = filter;
+        return current == null || current.mightContain(IdPairs.pack(filmId, userId));
+    }
+
+    public void add(int filmId, int userId) {
+        long pair = IdPairs.pack(filmId, userId);
+        put(pair);
+        entries.incrementAndGet();
+        afterCommit(() -> put(pair));
+    }
+
+    public void addAll(List<int[]> filmUserPairs) {
+        long[] pairs = new long[filmUserPairs.size()];
+        for (int i = 0; i < pairs.length; i++) {
+            pairs[i] = IdPairs.pack(filmUserPairs.get(i)[0], filmUserPairs.get(i)[1]);
+            put(pairs[i]);
+        }
+        entries.addAndGet(pairs.length);
+        afterCommit(() -> {
+            for (long pair : pairs) {
+                put(pair);
+            }
+        });
+    }
+
+    public void markRemoved(int count) {
+        removed.addAndGet(count);
+    }
+
+    private void put(long pair) {
+        // Сначала building: rebuild публикует новый фильтр раньше, чем обнуляет building
+        LongBloomFilter next = building;
+        if (next != null) {
+            next.add(pair);
+        }
+        LongBloomFilter current = filter;
+        if (current != null) {
+            current.add(pair);
+        }
+    }
+}
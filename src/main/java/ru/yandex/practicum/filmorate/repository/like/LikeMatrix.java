@@ -0,0 +1,128 @@
+package ru.yandex.practicum.filmorate.repository.like;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.repository.AdjacencyIndex;
+import ru.yandex.practicum.filmorate.repository.IdPairs;
+import ru.yandex.practicum.filmorate.repository.IntCountMap;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Разреженная матрица пользователь × фильм из like_film: строки по пользователям и столбцы по фильмам
+ * хранятся отсортированными массивами id. Рекомендации строятся по пользователям с наибольшим пересечением
+ * лайков; при большом объёме пересечений подсчёт идёт параллельно.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LikeMatrix {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final AdjacencyIndex likes = new AdjacencyIndex();
+
+    @Value("${filmorate.recommendations.neighbours:50}")
+    private final int neighbours;
+
+    @Value("${filmorate.recommendations.parallel-threshold:50000}")
+    private final int parallelThreshold;
+
+    @PostConstruct
+    public void rebuild() {
+        long edges = likes.load(consumer ->
+                jdbcTemplate.query("SELECT id_user, id_film FROM like_film", (RowCallbackHandler) rs ->
+                        consumer.accept(IdPairs.pack(rs.getInt("id_user"), rs.getInt("id_film")))));
+        log.info("Загружена матрица лайков: {} лайков", edges);
+    }
+
+    public int[] filmsLikedBy(int userId) {
+        return likes.forward(userId);
+    }
+
+    public int[] usersWhoLiked(int filmId) {
+        return likes.backward(filmId);
+    }
+
+    public boolean isLiked(int filmId, int userId) {
+        return likes.contains(userId, filmId);
+    }
+
+    public void add(int filmId, int userId) {
+        likes.add(userId, filmId);
+    }
+
+    public void addAll(List<int[]> filmUserPairs) {
+        List<int[]> userFilmPairs = new ArrayList<>(filmUserPairs.size());
+        for (int[] like : filmUserPairs) {
+            userFilmPairs.add(new int[]{like[1], like[0]});
+        }
+        likes.addAll(userFilmPairs);
+    }
+
+    public void remove(int filmId, int userId) {
+        likes.remove(userId, filmId);
+    }
+
+    public void removeAll(List<int[]> filmUserPairs) {
+        for (int[] like : filmUserPairs) {
+            likes.remove(like[1], like[0]);
+        }
+    }
+
+    public void removeUser(int userId) {
+        likes.removeFrom(userId);
+    }
+
+    public void removeFilm(int filmId) {
+        likes.removeTo(filmId);
+    }
+
+    public int[] recommendFilms(int userId, int limit) {
+        int[] liked = filmsLikedBy(userId);
+        if (liked.length == 0) {
+            return new int[0];
+        }
+
+        long overlapWork = 0;
+        for (int filmId : liked) {
+            overlapWork += usersWhoLiked(filmId).length;
+        }
+        IntStream likedFilms = IntStream.range(0, liked.length);
+        if (overlapWork >= parallelThreshold) {
+            likedFilms = likedFilms.parallel();
+        }
+        IntCountMap overlap = likedFilms.collect(() -> new IntCountMap(16), (counts, i) -> {
+            for (int otherUserId : usersWhoLiked(liked[i])) {
+                counts.add(otherUserId, 1);
+            }
+        }, IntCountMap::addAll);
+        int[] similarUsers = overlap.top(neighbours, otherUserId -> otherUserId == userId);
+
+        long scoreWork = 0;
+        for (int otherUserId : similarUsers) {
+            scoreWork += filmsLikedBy(otherUserId).length;
+        }
+        IntStream neighbourIndexes = IntStream.range(0, similarUsers.length);
+        if (scoreWork >= parallelThreshold) {
+            neighbourIndexes = neighbourIndexes.parallel();
+        }
+        IntCountMap scores = neighbourIndexes.collect(() -> new IntCountMap(16), (counts, i) -> {
+            int weight = overlap.get(similarUsers[i]);
+            for (int filmId : filmsLikedBy(similarUsers[i])) {
+                if (Arrays.binarySearch(liked, filmId) < 0) {
+                    counts.add(filmId, weight);
+                }
+            }
+        }, IntCountMap::addAll);
+        return scores.top(limit, filmId -> false);
+    }
+}
@@ -1,35 +1,48 @@
 package ru.yandex.practicum.filmorate.repository.rating;
 
-import lombok.AllArgsConstructor;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.RatingMPA;
+import ru.yandex.practicum.filmorate.repository.EntityCache;
+import ru.yandex.practicum.filmorate.repository.ReferenceTable;
 
+import javax.annotation.PostConstruct;
 import java.util.List;
 
+@Slf4j
 @Component
-@AllArgsConstructor
+@RequiredArgsConstructor
 public class RatingMPARepository {
 
     private final JdbcTemplate jdbcTemplate;
 
+    private final EntityCache<Integer, Film> filmCache;
+
+    private volatile ReferenceTable<RatingMPA> ratings = new ReferenceTable<>(List.of(), RatingMPA::getId);
+
+    @PostConstruct
+    public void reload() {
+        List<RatingMPA> loaded = jdbcTemplate.query(
+                "SELECT id_ratingMPA, name_MPA FROM ratingMPA ORDER BY id_ratingMPA", (rs, rowNum) ->
+                        new RatingMPA(rs.getInt("id_ratingMPA"), rs.getString("name_MPA")));
+        ratings = new ReferenceTable<>(loaded, RatingMPA::getId);
+        // В кэшированных фильмах остались значения из прежнего справочника
+        filmCache.invalidateAll();
+        log.info("Загружено рейтингов MPA: {}", loaded.size());
+    }
+
     public List<RatingMPA> getAll() {
-        return jdbcTemplate.query("SELECT * FROM ratingMPA", (rs, rowNum) ->
-                new RatingMPA(rs.getInt("id_ratingMPA"), rs.getString("name_mpa")));
+        return ratings.getAll();
     }
 
     public RatingMPA getById(Integer id) {
-        return jdbcTemplate.queryForObject("SELECT * FROM ratingMPA WHERE id_ratingMPA = ?", (rs, rowNum) -> {
-            RatingMPA ratingMpa = new RatingMPA();
-            ratingMpa.setId(rs.getInt("id_ratingMPA"));
-            ratingMpa.setName(rs.getString("name_MPA"));
-            return ratingMpa;
-        }, id);
+        return ratings.get(id);
     }
 
     public boolean isExist(int id) {
-        String sql = "SELECT EXISTS (SELECT id_ratingMPA FROM ratingMPA WHERE id_ratingMPA = ?)";
-        boolean isExist = jdbcTemplate.queryForObject(sql, Boolean.class, id);
-        return isExist;
+        return ratings.contains(id);
     }
 }
@@ -1,28 +1,66 @@
 package ru.yandex.practicum.filmorate.repository.user;
 
-import lombok.AllArgsConstructor;
+import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Primary;
 import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Component;
 import org.springframework.web.server.ResponseStatusException;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.repository.EntityCache;
+import ru.yandex.practicum.filmorate.repository.IdBitmap;
+import ru.yandex.practicum.filmorate.repository.friend.FriendshipGraph;
+import ru.yandex.practicum.filmorate.repository.like.LikeMatrix;
 
+import javax.annotation.PostConstruct;
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.sql.Statement;
 import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+import static ru.yandex.practicum.filmorate.repository.TransactionHooks.afterCommit;
+import static ru.yandex.practicum.filmorate.repository.TransactionHooks.afterCompletion;
 
 @Component
 @Primary
-@AllArgsConstructor
+@RequiredArgsConstructor
 public class UserRepository {
 
+    private static final int MAX_IN_LIST = 1000;
+
     private final JdbcTemplate jdbcTemplate;
 
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    private final EntityCache<Integer, User> userCache;
+
+    private final FriendshipGraph friendshipGraph;
+
+    private final LikeMatrix likeMatrix;
+
+    private final IdBitmap userIds = new IdBitmap();
+
+    @PostConstruct
+    public void loadIds() {
+        BitSet ids = new BitSet();
+        jdbcTemplate.query("SELECT id FROM users", (RowCallbackHandler) rs -> ids.set(rs.getInt("id")));
+        userIds.reset(ids);
+    }
+
     public User add(User user) {
         if (user == null) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Пустой пользователь");
@@ -43,10 +81,51 @@ public class UserRepository {
 
         int generatedId = keyHolder.getKey().intValue();
         user.setId(generatedId);
+        afterCommit(() -> userIds.add(generatedId));
 
         return user;
     }
 
+    public List<User> addAll(List<User> users) {
+        if (users.isEmpty()) {
+            return users;
+        }
+        String sql = "INSERT INTO users (name, email, login, birthday) VALUES (?, ?, ?, ?)";
+
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (PreparedStatement ps = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                for (User user : users) {
+                    ps.setString(1, user.getName());
+                    ps.setString(2, user.getEmail());
+                    ps.setString(3, user.getLogin());
+                    ps.setTimestamp(4, Timestamp.valueOf(user.getBirthday().atStartOfDay()));
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+
+                try (ResultSet keys = ps.getGeneratedKeys()) {
+                    int index = 0;
+                    while (keys.next()) {
+                        users.get(index++).setId(keys.getInt(1));
+                    }
+                }
+            }
+            return null;
+        });
+        afterCommit(() -> users.forEach(user -> userIds.add(user.getId())));
+
+        return users;
+    }
+
+    public BitSet getIdSet() {
+        return userIds.toBitSet();
+    }
+
+    public void forEachLoginAndEmail(BiConsumer<String, String> consumer) {
+        jdbcTemplate.query("SELECT login, email FROM users", (RowCallbackHandler) rs ->
+                consumer.accept(rs.getString("login"), rs.getString("email")));
+    }
+
     public List<User> getAll() {
         String sql = "SELECT u.id, u.name, u.email, u.login, u.birthday " +
                 "FROM users u";
@@ -73,31 +152,64 @@ public class UserRepository {
                 updateUser.getLogin(),
                 Timestamp.valueOf(updateUser.getBirthday().atStartOfDay()),
                 updateUser.getId());
+        int userId = updateUser.getId();
+        afterCompletion(() -> userCache.invalidate(userId));
 
         return updateUser;
     }
 
     public User getById(Integer userId) {
-        String userExistsSql = "SELECT COUNT(*) FROM users WHERE id = ?";
-        int userCount = jdbcTemplate.queryForObject(userExistsSql, Integer.class, userId);
+        if (userId == null || !userIds.contains(userId)) {
+            throw new NotFoundException("Пользователь с ID " + userId + " не найден");
+        }
+
+        User user = userCache.get(userId, id -> {
+            String sql = "SELECT u.id, u.name, u.email, u.login, u.birthday " +
+                    "FROM users u " +
+                    "WHERE u.id = ?";
+            List<User> users = jdbcTemplate.query(sql, (rs, rowNum) -> mapUser(rs), id);
+            return users.isEmpty() ? null : users.get(0);
+        });
 
-        if (userCount == 0) {
+        if (user == null) {
             throw new NotFoundException("Пользователь с ID " + userId + " не найден");
         }
+        return user;
+    }
+
+    public List<User> getByIds(int[] ids) {
+        Map<Integer, User> found = new HashMap<>();
+        List<Integer> missing = new ArrayList<>();
+        for (int id : ids) {
+            User user = userCache.getIfPresent(id);
+            if (user != null) {
+                found.put(id, user);
+            } else {
+                missing.add(id);
+            }
+        }
 
         String sql = "SELECT u.id, u.name, u.email, u.login, u.birthday " +
                 "FROM users u " +
-                "WHERE u.id = ?";
+                "WHERE u.id IN (:ids)";
+        long stamp = userCache.stamp();
+        for (int from = 0; from < missing.size(); from += MAX_IN_LIST) {
+            List<Integer> chunk = missing.subList(from, Math.min(from + MAX_IN_LIST, missing.size()));
+            namedJdbcTemplate.query(sql, new MapSqlParameterSource("ids", chunk), (RowCallbackHandler) rs -> {
+                User user = mapUser(rs);
+                userCache.put(user.getId(), user, stamp);
+                found.put(user.getId(), user);
+            });
+        }
 
-        return jdbcTemplate.queryForObject(sql, (rs, rowNum) -> {
-            User user = new User();
-            user.setId(rs.getInt("id"));
-            user.setName(rs.getString("name"));
-            user.setEmail(rs.getString("email"));
-            user.setLogin(rs.getString("login"));
-            user.setBirthday(rs.getDate("birthday").toLocalDate());
-            return user;
-        }, userId);
+        List<User> result = new ArrayList<>(found.size());
+        for (int id : ids) {
+            User user = found.get(id);
+            if (user != null) {
+                result.add(user);
+            }
+        }
+        return result;
     }
 
     public User remove(Integer userId) {
@@ -120,17 +232,27 @@ public class UserRepository {
 
         String deleteSql = "DELETE FROM users WHERE id = ?";
         jdbcTemplate.update(deleteSql, userId);
+        afterCommit(() -> {
+            userIds.remove(userId);
+            friendshipGraph.removeUser(userId);
+            likeMatrix.removeUser(userId);
+        });
+        afterCompletion(() -> userCache.invalidate(userId));
 
         return userToRemove;
     }
 
     public boolean isExist(int id) {
-        String checkId = "SELECT COUNT(id) FROM users WHERE id = ?";
-        Integer count = jdbcTemplate.queryForObject(checkId, Integer.class, id);
-        if (count < 1) {
-            return false;
-        } else {
-            return true;
-        }
+        return userIds.contains(id);
+    }
+
+    private static User mapUser(ResultSet rs) throws SQLException {
+        User user = new User();
+        user.setId(rs.getInt("id"));
+        user.setName(rs.getString("name"));
+        user.setEmail(rs.getString("email"));
+        user.setLogin(rs.getString("login"));
+        user.setBirthday(rs.getDate("birthday").toLocalDate());
+        return user;
     }
 }
@@ -0,0 +1,105 @@
+package ru.yandex.practicum.filmorate.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Построчное чтение, при котором в памяти держится не больше {@code maxLength} символов одной строки.
+ * Хвост слишком длинной строки пропускается до перевода строки, а {@link #line()} для неё возвращает {@code null}.
+ */
+final class BoundedLineReader implements Closeable {
+    private final Reader reader;
+
+    private final int maxLength;
+
+    private final char[] buffer = new char[8192];
+
+    private final StringBuilder line = new StringBuilder();
+
+    private int position;
+
+    private int limit;
+
+    private long lineNumber;
+
+    private boolean oversized;
+
+    BoundedLineReader(Reader reader, int maxLength) {
+        this.reader = reader;
+        this.maxLength = maxLength;
+    }
+
+    /**
+     * Переходит к следующей строке.
+     *
+     * @return {@code false}, если данные кончились
+     */
+    boolean next() throws IOException {
+        line.setLength(0);
+        oversized = false;
+        boolean started = false;
+        while (true) {
+            if (position == limit) {
+                int read = reader.read(buffer, 0, buffer.length);
+                if (read < 0) {
+                    position = 0;
+                    limit = 0;
+                    return started && finishLine();
+                }
+                position = 0;
+                limit = read;
+                continue;
+            }
+            started = true;
+            int from = position;
+            while (position < limit && buffer[position] != '\n') {
+                position++;
+            }
+            append(from, position);
+            if (position < limit) {
+                position++;
+                return finishLine();
+            }
+        }
+    }
+
+    String line() {
+        return oversized ? null : line.toString();
+    }
+
+    long lineNumber() {
+        return lineNumber;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private void append(int from, int to) {
+        if (oversized) {
+            return;
+        }
+        // Один лишний символ — под '\r' перед переводом строки
+        if (line.length() + (to - from) > maxLength + 1) {
+            oversized = true;
+            line.setLength(0);
+            return;
+        }
+        line.append(buffer, from, to - from);
+    }
+
+    private boolean finishLine() {
+        lineNumber++;
+        int length = line.length();
+        if (length > 0 && line.charAt(length - 1) == '\r') {
+            line.setLength(length - 1);
+        }
+        if (line.length() > maxLength) {
+            oversized = true;
+            line.setLength(0);
+        }
+        return true;
+    }
+}
@@ -7,4 +7,6 @@ public interface ClassificationService<T> {
     List<T> getAll();
 
     T getById(Integer id);
+
+    List<T> reload();
 }
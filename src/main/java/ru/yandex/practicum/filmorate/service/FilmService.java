@@ -1,23 +1,57 @@
 package ru.yandex.practicum.filmorate.service;
 
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.yandex.practicum.filmorate.model.CacheStats;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmPage;
+import ru.yandex.practicum.filmorate.model.LikeQueueStats;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface FilmService {
     Film addFilm(Film film);
 
     List<Film> getAllFilms();
 
+    FilmPage getFilmsPage(Integer afterId, int limit);
+
+    int streamAllFilms(Consumer<Film> consumer);
+
+    Flux<Film> streamFilms(Integer afterId, Integer limit);
+
+    Mono<List<Film>> findFilmsPage(Integer afterId, Integer limit);
+
+    Mono<Film> findFilmById(Integer filmId);
+
     Film updateFilm(Film updatedFilm);
 
     void likeFilm(Integer filmId, Integer userId);
 
     void unlikeFilm(Integer filmId, Integer userId);
 
+    boolean isAsyncLikes();
+
+    long submitLike(Integer filmId, Integer userId);
+
+    long submitUnlike(Integer filmId, Integer userId);
+
+    LikeQueueStats flushLikes(long from, long sequence, long timeoutMs);
+
     List<Film> getPopularFilms(int count);
 
+    List<Film> getPopularFilms(int count, Integer genreId, Integer year);
+
+    FilmPage searchFilms(String query, int offset, int limit);
+
+    List<Film> getRecommendations(Integer userId, int limit);
+
+    CacheStats getCacheStats();
+
     Film getFilmById(Integer filmId);
 
+    List<Film> getFilmsByIds(List<Integer> filmIds);
+
     Film remove(Integer filmId);
 }
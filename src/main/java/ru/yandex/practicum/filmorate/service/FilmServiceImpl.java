@@ -6,16 +6,21 @@ import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.CacheStats;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmPage;
+import ru.yandex.practicum.filmorate.model.LikeQueueStats;
 import ru.yandex.practicum.filmorate.repository.film.FilmRepository;
+import ru.yandex.practicum.filmorate.repository.film.ReactiveFilmRepository;
 import ru.yandex.practicum.filmorate.repository.like.LikeFilmsRepository;
 
 import java.time.LocalDate;
-import java.util.Comparator;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
 
 @Slf4j
 @Service
@@ -27,6 +32,10 @@ public class FilmServiceImpl implements FilmService {
 
     private final LikeFilmsRepository likeFilms;
 
+    private final ReactiveFilmRepository reactiveFilmStorage;
+
+    private final LikeIngestor likeIngestor;
+
     @Override
     @Transactional
     public Film addFilm(Film film) {
@@ -42,17 +51,71 @@ public class FilmServiceImpl implements FilmService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<Film> getAllFilms() {
         log.info("Получение всех фильмов");
         return filmStorage.getAll();
     }
 
     @Override
+    @Transactional(readOnly = true)
+    public FilmPage getFilmsPage(Integer afterId, int limit) {
+        if (limit < 1) {
+            throw new ValidationException("Размер страницы должен быть положительным");
+        }
+        log.info("Получение страницы фильмов после id {} (размер: {})", afterId, limit);
+        return filmStorage.getPage(afterId, limit);
+    }
+
+    @Override
+    public Flux<Film> streamFilms(Integer afterId, Integer limit) {
+        if (limit != null && limit < 1) {
+            throw new ValidationException("Размер страницы должен быть положительным");
+        }
+        log.info("Неблокирующая выгрузка фильмов после id {} (ограничение: {})", afterId, limit);
+        return reactiveFilmStorage.findAll(afterId != null ? afterId : 0, limit);
+    }
+
+    @Override
+    public Mono<List<Film>> findFilmsPage(Integer afterId, Integer limit) {
+        int pageSize = limit != null ? Math.min(limit, FilmRepository.MAX_PAGE_SIZE) : FilmRepository.MAX_PAGE_SIZE;
+        return streamFilms(afterId, pageSize).collectList();
+    }
+
+    @Override
+    public Mono<Film> findFilmById(Integer filmId) {
+        log.info("Неблокирующее получение фильма по ID: {}", filmId);
+        return reactiveFilmStorage.findById(filmId)
+                .switchIfEmpty(Mono.error(() -> new NotFoundException("Фильм с ID " + filmId + " не найден")));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public int streamAllFilms(Consumer<Film> consumer) {
+        log.info("Потоковая выгрузка всех фильмов");
+        int count = filmStorage.streamAll(consumer);
+        log.debug("Выгружено фильмов: {}", count);
+        return count;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public Film getFilmById(Integer filmId) {
         log.info("Получение пользователя по ID: {}", filmId);
         return filmStorage.getById(filmId);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public List<Film> getFilmsByIds(List<Integer> filmIds) {
+        if (filmIds.size() > FilmRepository.MAX_PAGE_SIZE) {
+            throw new ValidationException(String.format("Можно запросить не более %d фильмов за раз",
+                    FilmRepository.MAX_PAGE_SIZE));
+        }
+        log.info("Получение фильмов по списку ID: {}", filmIds);
+        return filmStorage.getByIds(filmIds);
+    }
+
     @Override
     @Transactional
     public Film updateFilm(Film updatedFilm) {
@@ -103,13 +166,74 @@ public class FilmServiceImpl implements FilmService {
     }
 
     @Override
+    public boolean isAsyncLikes() {
+        return likeIngestor.isEnabled();
+    }
+
+    @Override
+    public long submitLike(Integer filmId, Integer userId) {
+        checkLikeParticipants(filmId, userId);
+        return likeIngestor.submitLike(filmId, userId);
+    }
+
+    @Override
+    public long submitUnlike(Integer filmId, Integer userId) {
+        checkLikeParticipants(filmId, userId);
+        return likeIngestor.submitUnlike(filmId, userId);
+    }
+
+    @Override
+    public LikeQueueStats flushLikes(long from, long sequence, long timeoutMs) {
+        if (timeoutMs < 0) {
+            throw new ValidationException("Время ожидания не может быть отрицательным");
+        }
+        log.debug("Ожидание записи лайков с {} до {} (не дольше {} мс)", from, sequence, timeoutMs);
+        return likeIngestor.await(from, sequence, timeoutMs);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public List<Film> getPopularFilms(int count) {
-        List<Film> allFilms = filmStorage.getAll();
-        log.debug("Пользователь запросил топ {} фильмов", count);
-        return allFilms.stream()
-                .sorted(Comparator.comparingInt(Film::getRate).reversed())
-                .limit(count)
-                .collect(Collectors.toList());
+        return getPopularFilms(count, null, null);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Film> getPopularFilms(int count, Integer genreId, Integer year) {
+        log.debug("Пользователь запросил топ {} фильмов (жанр: {}, год: {})", count, genreId, year);
+        return filmStorage.getPopular(count, genreId, year);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public FilmPage searchFilms(String query, int offset, int limit) {
+        if (query == null || query.isBlank()) {
+            throw new ValidationException("Поисковый запрос не может быть пустым");
+        }
+        if (offset < 0) {
+            throw new ValidationException("Смещение не может быть отрицательным");
+        }
+        if (limit < 1) {
+            throw new ValidationException("Размер страницы должен быть положительным");
+        }
+        log.debug("Поиск фильмов по запросу '{}' (смещение: {}, размер: {})", query, offset, limit);
+        return filmStorage.search(query, offset, Math.min(limit, FilmRepository.MAX_PAGE_SIZE));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Film> getRecommendations(Integer userId, int limit) {
+        if (limit < 1) {
+            throw new ValidationException("Количество рекомендаций должно быть положительным");
+        }
+        userService.getUserById(userId);
+        log.debug("Пользователь {} запросил рекомендации фильмов", userId);
+        return filmStorage.getRecommendations(userId, Math.min(limit, FilmRepository.MAX_PAGE_SIZE));
+    }
+
+    @Override
+    public CacheStats getCacheStats() {
+        return filmStorage.getCacheStats();
     }
 
     @Override
@@ -123,7 +247,19 @@ public class FilmServiceImpl implements FilmService {
         return filmStorage.remove(filmId);
     }
 
-    private void validateFilm(Film film) {
+    private void checkLikeParticipants(Integer filmId, Integer userId) {
+        // Повторы не проверяются: поток записи схлопывает их и сверяет с уже записанными лайками
+        if (!userService.isExist(userId)) {
+            log.debug("Поступил лайк в очередь от несуществующего пользователя с id {}.", userId);
+            throw new NotFoundException(String.format("Пользователь с id %d не зарегистрирован.", userId));
+        }
+        if (!filmStorage.isExist(filmId)) {
+            log.debug("Поступил лайк в очередь для несуществующего фильма с id {}.", filmId);
+            throw new NotFoundException(String.format("Фильм с id %d не не существует.", filmId));
+        }
+    }
+
+    static void validateFilm(Film film) {
         if (film == null) {
             throw new ValidationException("Ошибка добавления фильма: Передан пустой фильм");
         }
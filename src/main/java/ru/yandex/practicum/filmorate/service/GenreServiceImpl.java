@@ -24,11 +24,18 @@ public class GenreServiceImpl implements ClassificationService<Genre> {
     @Override
     public Genre getById(Integer id) {
         log.debug("Обрабатываем запрос на просмотр фильма с id {}.", id);
-        if (genreStorage.isExist(id)) {
-            return genreStorage.getById(id);
-        } else {
+        Genre genre = genreStorage.getById(id);
+        if (genre == null) {
             log.debug("Жанра с таким id не существующего {}", id);
             throw new NotFoundException(String.format("Жанра с таким id %d не существует.", id));
         }
+        return genre;
+    }
+
+    @Override
+    public List<Genre> reload() {
+        log.info("Перечитываем справочник жанров.");
+        genreStorage.reload();
+        return genreStorage.getAll();
     }
 }
@@ -0,0 +1,15 @@
+package ru.yandex.practicum.filmorate.service;
+
+import ru.yandex.practicum.filmorate.model.ImportReport;
+
+import java.io.InputStream;
+
+public interface ImportService {
+    ImportReport importFilms(InputStream input);
+
+    ImportReport importUsers(InputStream input);
+
+    ImportReport importFriends(InputStream input);
+
+    ImportReport importLikes(InputStream input);
+}
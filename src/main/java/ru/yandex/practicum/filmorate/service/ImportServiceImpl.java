@@ -0,0 +1,368 @@
+package ru.yandex.practicum.filmorate.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.ImportError;
+import ru.yandex.practicum.filmorate.model.ImportReport;
+import ru.yandex.practicum.filmorate.model.RatingMPA;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.repository.IdPairs;
+import ru.yandex.practicum.filmorate.repository.film.FilmRepository;
+import ru.yandex.practicum.filmorate.repository.friend.FriendsRepository;
+import ru.yandex.practicum.filmorate.repository.genre.GenreFilmRepository;
+import ru.yandex.practicum.filmorate.repository.like.LikeFilmsRepository;
+import ru.yandex.practicum.filmorate.repository.rating.RatingMPARepository;
+import ru.yandex.practicum.filmorate.repository.user.UserRepository;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Service
+@AllArgsConstructor
+public class ImportServiceImpl implements ImportService {
+    private final ObjectMapper objectMapper;
+
+    private final Validator validator;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final FilmRepository filmStorage;
+
+    private final UserRepository userStorage;
+
+    private final FriendsRepository friendsStorage;
+
+    private final LikeFilmsRepository likeFilms;
+
+    private final GenreFilmRepository genreStorage;
+
+    private final RatingMPARepository ratingMpaStorage;
+
+    @Value("${filmorate.import.batch-size:1000}")
+    private final int batchSize;
+
+    @Value("${filmorate.import.max-reported-errors:1000}")
+    private final int maxReportedErrors;
+
+    @Value("${filmorate.import.max-line-length:65536}")
+    private final int maxLineLength;
+
+    @Override
+    public ImportReport importFilms(InputStream input) {
+        long start = System.nanoTime();
+        ImportReport report = new ImportReport();
+        ObjectReader filmReader = objectMapper.readerFor(Film.class);
+
+        List<Film> batch = new ArrayList<>(batchSize);
+        List<Long> batchLines = new ArrayList<>(batchSize);
+        forEachLine(input, report, (lineNumber, line) -> {
+            report.setTotal(report.getTotal() + 1);
+            try {
+                Film film = filmReader.readValue(line);
+                resolveFilm(film);
+                batch.add(film);
+                batchLines.add(lineNumber);
+            } catch (JsonProcessingException e) {
+                reject(report, lineNumber, "Некорректный JSON: " + e.getOriginalMessage());
+            } catch (ValidationException | NotFoundException e) {
+                reject(report, lineNumber, e.getMessage());
+            }
+
+            if (batch.size() >= batchSize) {
+                writeBatch(batch, batchLines, report, filmStorage::addAll);
+            }
+        });
+        writeBatch(batch, batchLines, report, filmStorage::addAll);
+
+        return finish(report, start, "фильмов");
+    }
+
+    @Override
+    public ImportReport importUsers(InputStream input) {
+        long start = System.nanoTime();
+        ImportReport report = new ImportReport();
+        Set<String> logins = new HashSet<>();
+        Set<String> emails = new HashSet<>();
+        userStorage.forEachLoginAndEmail((login, email) -> {
+            logins.add(login);
+            emails.add(email);
+        });
+        ObjectReader userReader = objectMapper.readerFor(User.class);
+
+        List<User> batch = new ArrayList<>(batchSize);
+        List<Long> batchLines = new ArrayList<>(batchSize);
+        forEachLine(input, report, (lineNumber, line) -> {
+            report.setTotal(report.getTotal() + 1);
+            try {
+                User user = userReader.readValue(line);
+                validate(user);
+                UserServiceImpl.validateUser(user);
+                if (logins.contains(user.getLogin()) || emails.contains(user.getEmail())) {
+                    report.setDuplicates(report.getDuplicates() + 1);
+                    reject(report, lineNumber, "Пользователь с таким логином или email уже существует");
+                    return;
+                }
+                logins.add(user.getLogin());
+                emails.add(user.getEmail());
+                batch.add(user);
+                batchLines.add(lineNumber);
+            } catch (JsonProcessingException e) {
+                reject(report, lineNumber, "Некорректный JSON: " + e.getOriginalMessage());
+            } catch (ValidationException e) {
+                reject(report, lineNumber, e.getMessage());
+            }
+
+            if (batch.size() >= batchSize) {
+                writeBatch(batch, batchLines, report, userStorage::addAll);
+            }
+        });
+        writeBatch(batch, batchLines, report, userStorage::addAll);
+
+        return finish(report, start, "пользователей");
+    }
+
+    @Override
+    public ImportReport importFriends(InputStream input) {
+        long start = System.nanoTime();
+        ImportReport report = new ImportReport();
+        // Дружба не зависит от направления: связь 2,1 повторяет уже существующую 1,2
+        LongHashSet knownFriendships = new LongHashSet(1024);
+        friendsStorage.forEachFriendship(pair -> knownFriendships.add(friendshipKey(IdPairs.first(pair), IdPairs.second(pair))));
+        EdgeBuffer edges = readEdges(input, report);
+
+        BitSet userIds = userStorage.getIdSet();
+        List<int[]> batch = new ArrayList<>(batchSize);
+        List<Long> batchLines = new ArrayList<>(batchSize);
+        for (int i = 0; i < edges.size; i++) {
+            int userId = IdPairs.first(edges.pairs[i]);
+            int friendId = IdPairs.second(edges.pairs[i]);
+            if (userId == friendId) {
+                reject(report, edges.lines[i], "Пользователь не может добавить в друзья сам себя");
+            } else if (!userIds.get(userId)) {
+                reject(report, edges.lines[i], "Пользователь с ID " + userId + " не найден");
+            } else if (!userIds.get(friendId)) {
+                reject(report, edges.lines[i], "Пользователь с ID " + friendId + " не найден");
+            } else if (!knownFriendships.add(friendshipKey(userId, friendId))) {
+                report.setDuplicates(report.getDuplicates() + 1);
+            } else {
+                batch.add(new int[]{userId, friendId});
+                batchLines.add(edges.lines[i]);
+                if (batch.size() >= batchSize) {
+                    writeBatch(batch, batchLines, report, friendsStorage::addFriends);
+                }
+            }
+        }
+        writeBatch(batch, batchLines, report, friendsStorage::addFriends);
+
+        return finish(report, start, "дружеских связей");
+    }
+
+    @Override
+    public ImportReport importLikes(InputStream input) {
+        long start = System.nanoTime();
+        ImportReport report = new ImportReport();
+        LongHashSet knownLikes = new LongHashSet(1024);
+        likeFilms.forEachLike(knownLikes::add);
+        EdgeBuffer edges = readEdges(input, report);
+
+        BitSet filmIds = filmStorage.getIdSet();
+        BitSet userIds = userStorage.getIdSet();
+        List<int[]> batch = new ArrayList<>(batchSize);
+        List<Long> batchLines = new ArrayList<>(batchSize);
+        for (int i = 0; i < edges.size; i++) {
+            int filmId = IdPairs.first(edges.pairs[i]);
+            int userId = IdPairs.second(edges.pairs[i]);
+            if (!filmIds.get(filmId)) {
+                reject(report, edges.lines[i], "Фильм с ID " + filmId + " не найден");
+            } else if (!userIds.get(userId)) {
+                reject(report, edges.lines[i], "Пользователь с ID " + userId + " не найден");
+            } else if (!knownLikes.add(edges.pairs[i])) {
+                report.setDuplicates(report.getDuplicates() + 1);
+            } else {
+                batch.add(new int[]{filmId, userId});
+                batchLines.add(edges.lines[i]);
+                if (batch.size() >= batchSize) {
+                    writeBatch(batch, batchLines, report, likeFilms::likeForFilms);
+                }
+            }
+        }
+        writeBatch(batch, batchLines, report, likeFilms::likeForFilms);
+
+        return finish(report, start, "лайков");
+    }
+
+    private EdgeBuffer readEdges(InputStream input, ImportReport report) {
+        EdgeBuffer edges = new EdgeBuffer();
+        forEachLine(input, report, (lineNumber, line) -> {
+            String[] ids = line.split(",");
+            int first;
+            int second;
+            try {
+                if (ids.length != 2) {
+                    throw new NumberFormatException();
+                }
+                first = Integer.parseInt(ids[0].trim());
+                second = Integer.parseInt(ids[1].trim());
+            } catch (NumberFormatException e) {
+                if (lineNumber == 1 && !line.matches(".*\\d.*")) {
+                    return;
+                }
+                report.setTotal(report.getTotal() + 1);
+                reject(report, lineNumber, "Некорректная строка: ожидаются два id через запятую");
+                return;
+            }
+
+            report.setTotal(report.getTotal() + 1);
+            if (first < 1 || second < 1) {
+                reject(report, lineNumber, "Id должны быть положительными");
+            } else {
+                edges.add(IdPairs.pack(first, second), lineNumber);
+            }
+        });
+        return edges;
+    }
+
+    private static long friendshipKey(int userId, int friendId) {
+        return IdPairs.pack(Math.min(userId, friendId), Math.max(userId, friendId));
+    }
+
+    private void resolveFilm(Film film) {
+        validate(film);
+        FilmServiceImpl.validateFilm(film);
+
+        RatingMPA mpa = ratingMpaStorage.getById(film.getMpa().getId());
+        if (mpa == null) {
+            throw new NotFoundException("Такого рейтинга MPA не существует");
+        }
+        film.setMpa(mpa);
+
+        TreeMap<Integer, Genre> filmGenres = new TreeMap<>();
+        if (film.getGenres() != null) {
+            for (Genre genre : film.getGenres()) {
+                Genre resolved = genreStorage.getById(genre.getId());
+                if (resolved == null) {
+                    throw new NotFoundException(String.format("Жанра с таким id %d не существует.", genre.getId()));
+                }
+                filmGenres.put(resolved.getId(), resolved);
+            }
+        }
+        film.setGenres(new LinkedHashSet<>(filmGenres.values()));
+    }
+
+    private <T> void validate(T value) {
+        Set<ConstraintViolation<T>> violations = validator.validate(value);
+        if (!violations.isEmpty()) {
+            throw new ValidationException(violations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining("; ")));
+        }
+    }
+
+    private <T> void writeBatch(List<T> batch, List<Long> batchLines, ImportReport report, Consumer<List<T>> writer) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> writer.accept(batch));
+            report.setImported(report.getImported() + batch.size());
+        } catch (DataAccessException e) {
+            // Одна строка, которую отвергла база, не должна отклонять весь пакет: пишем по одной
+            log.warn("Пакет импорта не записан целиком, запись по одной строке: {}", e.getMessage());
+            for (int i = 0; i < batch.size(); i++) {
+                List<T> single = List.of(batch.get(i));
+                try {
+                    transactionTemplate.executeWithoutResult(status -> writer.accept(single));
+                    report.setImported(report.getImported() + 1);
+                } catch (DataAccessException rowError) {
+                    reject(report, batchLines.get(i), "Ошибка записи: " + rowError.getMostSpecificCause().getMessage());
+                }
+            }
+        }
+        batch.clear();
+        batchLines.clear();
+    }
+
+    private void reject(ImportReport report, long line, String message) {
+        report.setRejected(report.getRejected() + 1);
+        if (report.getErrors().size() < maxReportedErrors) {
+            report.getErrors().add(new ImportError(line, message));
+        }
+    }
+
+    private ImportReport finish(ImportReport report, long start, String subject) {
+        long elapsedNanos = System.nanoTime() - start;
+        report.setElapsedMs(elapsedNanos / 1_000_000);
+        report.setRowsPerSecond(elapsedNanos > 0 ? report.getTotal() * 1_000_000_000.0 / elapsedNanos : 0);
+        log.info("Импорт {} завершён: всего {}, добавлено {}, дубликатов {}, отклонено {} за {} мс ({} строк/с)",
+                subject, report.getTotal(), report.getImported(), report.getDuplicates(), report.getRejected(),
+                report.getElapsedMs(), Math.round(report.getRowsPerSecond()));
+        return report;
+    }
+
+    private void forEachLine(InputStream input, ImportReport report, LineHandler handler) {
+        try (BoundedLineReader reader = new BoundedLineReader(new InputStreamReader(input, StandardCharsets.UTF_8),
+                maxLineLength)) {
+            while (reader.next()) {
+                String line = reader.line();
+                if (line == null) {
+                    report.setTotal(report.getTotal() + 1);
+                    reject(report, reader.lineNumber(), "Строка длиннее " + maxLineLength + " символов");
+                } else if (!line.isBlank()) {
+                    handler.handle(reader.lineNumber(), line);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private interface LineHandler {
+        void handle(long lineNumber, String line);
+    }
+
+    private static final class EdgeBuffer {
+        private long[] pairs = new long[1024];
+
+        private long[] lines = new long[1024];
+
+        private int size;
+
+        private void add(long pair, long line) {
+            if (size == pairs.length) {
+                pairs = Arrays.copyOf(pairs, size * 2);
+                lines = Arrays.copyOf(lines, size * 2);
+            }
+            pairs[size] = pair;
+            lines[size] = line;
+            size++;
+        }
+    }
+}
@@ -0,0 +1,302 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.practicum.filmorate.exception.OverloadedException;
+import ru.yandex.practicum.filmorate.model.LikeQueueStats;
+import ru.yandex.practicum.filmorate.repository.IdPairs;
+import ru.yandex.practicum.filmorate.repository.like.LikeFilmsRepository;
+import ru.yandex.practicum.filmorate.repository.like.LikeMatrix;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Асинхронная запись лайков: запросы кладут события в ограниченный кольцевой буфер, единственный
+ * поток записи забирает всё накопившееся, схлопывает повторные лайки и снятия от одного пользователя
+ * к одному фильму (побеждает последнее) и пишет like_film одной транзакцией. Пока идёт запись,
+ * в буфере копится следующий пакет, поэтому под нагрузкой пакеты сами становятся крупнее.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LikeIngestor {
+    private static final long UNLIKE = Long.MIN_VALUE;
+
+    private static final long POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private static final int MAX_TRACKED_FAILURES = 100_000;
+
+    private static final int MAX_REPORTED_FAILURES = 100;
+
+    private final LikeFilmsRepository likeFilms;
+
+    private final LikeMatrix likeMatrix;
+
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${filmorate.likes.async.enabled:false}")
+    private final boolean enabled;
+
+    @Value("${filmorate.likes.async.capacity:65536}")
+    private final int capacity;
+
+    @Value("${filmorate.likes.async.batch-size:5000}")
+    private final int batchSize;
+
+    private final Object progress = new Object();
+
+    private final AtomicLong inserted = new AtomicLong();
+
+    private final AtomicLong deleted = new AtomicLong();
+
+    private final AtomicLong coalesced = new AtomicLong();
+
+    private final AtomicLong failed = new AtomicLong();
+
+    private final NavigableSet<Long> failedSequences = new TreeSet<>();
+
+    private LikeRingBuffer buffer;
+
+    private Thread writer;
+
+    private volatile boolean running;
+
+    private long written;
+
+    private long forgottenFailures;
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        buffer = new LikeRingBuffer(capacity);
+        running = true;
+        writer = new Thread(this::run, "like-ingestor");
+        writer.setDaemon(true);
+        writer.start();
+        log.info("Асинхронная запись лайков включена: буфер {}, пакет до {}", buffer.capacity(), batchSize);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (writer == null) {
+            return;
+        }
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(30));
+        if (buffer.size() > 0) {
+            log.warn("Остановка с незаписанными лайками: {}", buffer.size());
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public long submitLike(int filmId, int userId) {
+        return submit(IdPairs.pack(filmId, userId));
+    }
+
+    public long submitUnlike(int filmId, int userId) {
+        return submit(IdPairs.pack(filmId, userId) | UNLIKE);
+    }
+
+    /**
+     * Ждёт, пока будут обработаны все события с номером не больше {@code sequence}
+     * (при {@code sequence <= 0} — всё, что принято к моменту вызова). Запись считается завершённой,
+     * только если ни одно событие с номером от {@code from} до цели не потеряно; при {@code from <= 0}
+     * проверяется только само целевое событие, чтобы старые потери не портили каждое подтверждение.
+     */
+    public LikeQueueStats await(long from, long sequence, long timeoutMs) {
+        if (!enabled) {
+            return getStats(from, 0);
+        }
+        long published = buffer.published();
+        long target = sequence > 0 ? Math.min(sequence, published) : published;
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        synchronized (progress) {
+            try {
+                while (written < target) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        break;
+                    }
+                    TimeUnit.NANOSECONDS.timedWait(progress, remaining);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return getStats(from > 0 ? from : target, target);
+    }
+
+    public LikeQueueStats getStats(long from, long target) {
+        if (!enabled) {
+            return LikeQueueStats.builder().complete(true).build();
+        }
+        long first = Math.max(from, 1);
+        long done;
+        List<Long> lost;
+        boolean unknown;
+        synchronized (progress) {
+            done = written;
+            lost = first <= target
+                    ? failedSequences.subSet(first, true, target, true).stream()
+                    .limit(MAX_REPORTED_FAILURES)
+                    .collect(Collectors.toList())
+                    : List.of();
+            // Старые номера могли быть вытеснены из журнала, тогда о них ничего не известно
+            unknown = first <= target && first <= forgottenFailures;
+        }
+        return LikeQueueStats.builder()
+                .enabled(true)
+                .capacity(buffer.capacity())
+                .pending(buffer.size())
+                .enqueued(buffer.published())
+                .written(done)
+                .inserted(inserted.get())
+                .deleted(deleted.get())
+                .coalesced(coalesced.get())
+                .failed(failed.get())
+                .failedInRange(!lost.isEmpty() || unknown)
+                .failedSequences(lost)
+                .complete(done >= target && lost.isEmpty() && !unknown)
+                .build();
+    }
+
+    private long submit(long event) {
+        if (!enabled) {
+            throw new IllegalStateException("Асинхронная запись лайков выключена");
+        }
+        long sequence = buffer.offer(event);
+        if (sequence < 0) {
+            throw new OverloadedException("Очередь лайков переполнена, повторите запрос позже");
+        }
+        return sequence;
+    }
+
+    private void run() {
+        long[] batch = new long[batchSize];
+        while (running || buffer.size() > 0) {
+            int count;
+            try {
+                count = buffer.drainTo(batch, POLL_NANOS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (count == 0) {
+                continue;
+            }
+            Set<Long> failedPairs;
+            try {
+                failedPairs = write(batch, count);
+            } catch (RuntimeException e) {
+                failedPairs = null;
+                log.error("Не удалось записать пакет из {} лайков: {}", count, e.getMessage());
+            }
+            synchronized (progress) {
+                for (int i = 0; i < count; i++) {
+                    if (failedPairs == null || failedPairs.contains(batch[i] & ~UNLIKE)) {
+                        failedSequences.add(written + i + 1);
+                        failed.incrementAndGet();
+                    }
+                }
+                while (failedSequences.size() > MAX_TRACKED_FAILURES) {
+                    forgottenFailures = failedSequences.pollFirst();
+                }
+                written += count;
+                progress.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * @return пары, которые записать не удалось
+     */
+    private Set<Long> write(long[] batch, int count) {
+        Map<Long, Boolean> wanted = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            wanted.put(batch[i] & ~UNLIKE, (batch[i] & UNLIKE) == 0);
+        }
+
+        // Поток записи один, а матрица обновляется после коммита, поэтому она точно отражает like_film
+        List<int[]> likes = new ArrayList<>();
+        List<int[]> unlikes = new ArrayList<>();
+        wanted.forEach((pair, like) -> {
+            int filmId = IdPairs.first(pair);
+            int userId = IdPairs.second(pair);
+            boolean liked = likeMatrix.isLiked(filmId, userId);
+            if (like && !liked) {
+                likes.add(new int[]{filmId, userId});
+            } else if (!like && liked) {
+                unlikes.add(new int[]{filmId, userId});
+            }
+        });
+        coalesced.addAndGet(count - likes.size() - unlikes.size());
+        if (likes.isEmpty() && unlikes.isEmpty()) {
+            return Set.of();
+        }
+
+        try {
+            writeBatch(likes, unlikes);
+        } catch (DataAccessException e) {
+            // Например, фильм удалили, пока лайк стоял в очереди: пишем по одному, чтобы не терять остальные
+            log.warn("Пакет лайков не записан целиком, запись по одному: {}", e.getMessage());
+            Set<Long> failedPairs = new HashSet<>();
+            for (int[] like : likes) {
+                if (!writeSingle(List.of(like), List.of())) {
+                    failedPairs.add(IdPairs.pack(like[0], like[1]));
+                }
+            }
+            for (int[] unlike : unlikes) {
+                if (!writeSingle(List.of(), List.of(unlike))) {
+                    failedPairs.add(IdPairs.pack(unlike[0], unlike[1]));
+                }
+            }
+            return failedPairs;
+        }
+        log.debug("Записан пакет лайков: {} событий, {} добавлено, {} удалено", count, likes.size(), unlikes.size());
+        return Set.of();
+    }
+
+    private boolean writeSingle(List<int[]> likes, List<int[]> unlikes) {
+        try {
+            writeBatch(likes, unlikes);
+            return true;
+        } catch (DataAccessException e) {
+            log.warn("Лайк не записан: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private void writeBatch(List<int[]> likes, List<int[]> unlikes) {
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!likes.isEmpty()) {
+                likeFilms.likeForFilms(likes);
+            }
+            if (!unlikes.isEmpty()) {
+                likeFilms.dislikeForFilms(unlikes);
+            }
+        });
+        inserted.addAndGet(likes.size());
+        deleted.addAndGet(unlikes.size());
+    }
+}
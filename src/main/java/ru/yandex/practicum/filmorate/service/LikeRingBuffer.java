@@ -0,0 +1,94 @@
+package ru.yandex.practicum.filmorate.service;
+
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Ограниченный кольцевой буфер упакованных событий лайков без упаковки в объекты. Писать могут
+ * несколько потоков запросов, читает один поток записи. Номер события — его порядковый номер
+ * с момента старта, по нему вызывающие ждут подтверждения записи.
+ */
+final class LikeRingBuffer {
+    private final long[] events;
+
+    private final int mask;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition notEmpty = lock.newCondition();
+
+    private long head;
+
+    private long tail;
+
+    LikeRingBuffer(int capacity) {
+        int size = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+        events = new long[size];
+        mask = size - 1;
+    }
+
+    /**
+     * @return номер события или -1, если буфер заполнен
+     */
+    long offer(long event) {
+        lock.lock();
+        try {
+            if (tail - head == events.length) {
+                return -1;
+            }
+            events[(int) (tail & mask)] = event;
+            tail++;
+            notEmpty.signal();
+            return tail;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Ждёт первое событие не дольше {@code timeoutNanos}, затем забирает всё, что накопилось,
+     * но не больше {@code out.length}.
+     */
+    int drainTo(long[] out, long timeoutNanos) throws InterruptedException {
+        lock.lock();
+        try {
+            long remaining = timeoutNanos;
+            while (tail == head) {
+                if (remaining <= 0) {
+                    return 0;
+                }
+                remaining = notEmpty.awaitNanos(remaining);
+            }
+            int count = (int) Math.min(tail - head, out.length);
+            for (int i = 0; i < count; i++) {
+                out[i] = events[(int) (head & mask)];
+                head++;
+            }
+            return count;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    long published() {
+        lock.lock();
+        try {
+            return tail;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int size() {
+        lock.lock();
+        try {
+            return (int) (tail - head);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int capacity() {
+        return events.length;
+    }
+}
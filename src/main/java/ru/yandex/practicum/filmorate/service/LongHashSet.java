@@ -0,0 +1,59 @@
+package ru.yandex.practicum.filmorate.service;
+
+import java.util.Arrays;
+
+final class LongHashSet {
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    private long[] table;
+
+    private int size;
+
+    LongHashSet(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(expectedSize, 8) * 2 - 1) << 1;
+        table = new long[capacity];
+        Arrays.fill(table, EMPTY);
+    }
+
+    boolean add(long value) {
+        if ((size + 1) * 2 > table.length) {
+            grow();
+        }
+        int mask = table.length - 1;
+        int index = indexOf(value, mask);
+        while (table[index] != EMPTY) {
+            if (table[index] == value) {
+                return false;
+            }
+            index = (index + 1) & mask;
+        }
+        table[index] = value;
+        size++;
+        return true;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void grow() {
+        long[] old = table;
+        table = new long[old.length * 2];
+        Arrays.fill(table, EMPTY);
+        int mask = table.length - 1;
+        for (long value : old) {
+            if (value != EMPTY) {
+                int index = indexOf(value, mask);
+                while (table[index] != EMPTY) {
+                    index = (index + 1) & mask;
+                }
+                table[index] = value;
+            }
+        }
+    }
+
+    private static int indexOf(long value, int mask) {
+        long hash = value * 0x9E3779B97F4A7C15L;
+        return (int) (hash >>> 32) & mask;
+    }
+}
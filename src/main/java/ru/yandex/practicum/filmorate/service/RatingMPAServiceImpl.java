@@ -25,10 +25,18 @@ public class RatingMPAServiceImpl implements ClassificationService<RatingMPA> {
 
     @Override
     public RatingMPA getById(Integer id) {
-        if (!ratingMpa.isExist(id)) {
+        RatingMPA rating = ratingMpa.getById(id);
+        if (rating == null) {
             log.debug("Обрабатываем запрос на получение не существующего Рейтинга MPA {}", id);
             throw new NotFoundException(HttpStatus.NOT_FOUND, "Такого рейтинга MPA не существует");
         }
-        return ratingMpa.getById(id);
+        return rating;
+    }
+
+    @Override
+    public List<RatingMPA> reload() {
+        log.info("Перечитываем справочник рейтингов MPA.");
+        ratingMpa.reload();
+        return ratingMpa.getAll();
     }
 }
@@ -19,6 +19,8 @@ public interface UserService {
 
     List<User> getCommonFriends(Integer userId, Integer otherUserId);
 
+    List<User> getFriendSuggestions(Integer userId, int limit);
+
     User getUserById(Integer userId);
 
     User remove(Integer userId);
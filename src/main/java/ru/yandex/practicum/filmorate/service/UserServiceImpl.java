@@ -18,6 +18,8 @@ import java.util.List;
 @Service
 @AllArgsConstructor
 public class UserServiceImpl implements UserService {
+    private static final int MAX_SUGGESTIONS = 100;
+
     private final UserRepository userStorage;
     private final FriendsRepository friendsStorage;
 
@@ -36,6 +38,7 @@ public class UserServiceImpl implements UserService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<User> getAllUsers() {
         log.info("Получение всех пользователей");
         return userStorage.getAll();
@@ -56,6 +59,7 @@ public class UserServiceImpl implements UserService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public User getUserById(Integer userId) {
         log.info("Получение пользователя по ID: {}", userId);
         return userStorage.getById(userId);
@@ -94,6 +98,7 @@ public class UserServiceImpl implements UserService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<User> getFriendsList(Integer userId) {
         userStorage.getById(userId);
         log.info("Получение списка друзей для пользователя с ID {}", userId);
@@ -101,12 +106,24 @@ public class UserServiceImpl implements UserService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<User> getCommonFriends(Integer userId, Integer otherUserId) {
         userStorage.getById(userId);
         log.info("Получение списка общих друзей для пользователей с ID {} и {}", userId, otherUserId);
         return friendsStorage.getCommonFriends(userId, otherUserId);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public List<User> getFriendSuggestions(Integer userId, int limit) {
+        if (limit < 1) {
+            throw new ValidationException("Количество рекомендаций должно быть положительным");
+        }
+        userStorage.getById(userId);
+        log.info("Получение рекомендаций друзей для пользователя с ID {}", userId);
+        return friendsStorage.getFriendSuggestions(userId, Math.min(limit, MAX_SUGGESTIONS));
+    }
+
     @Override
     @Transactional
     public User remove(Integer userId) {
@@ -123,7 +140,7 @@ public class UserServiceImpl implements UserService {
         return userStorage.isExist(userId);
     }
 
-    private void validateUser(User user) {
+    static void validateUser(User user) {
         if (user == null) {
             log.debug("Пользователь равен null.");
             throw new ValidationException("Пустой пользователь");
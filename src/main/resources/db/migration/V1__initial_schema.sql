@@ -1,6 +1,3 @@
-drop table if exists films, users, genre_film, genre, ratingMPA, like_film, friends;
-
-
 create table if not exists genre (
     id_genre integer generated by default as identity not null primary key,
     name_genre VARCHAR(20) NOT NULL
@@ -38,7 +35,6 @@ create table if not exists like_film (
     primary key (id_film, id_user)
 );
 
-
 create table if not exists friends (
     id_user integer not null references users (id) on delete cascade on update cascade,
     id_friend integer not null references users (id) on delete cascade on update cascade,
@@ -50,4 +46,3 @@ create table if not exists genre_film (
     id_genre integer not null references genre (id_genre) on delete cascade on update cascade,
     primary key (id_film, id_genre)
 );
-
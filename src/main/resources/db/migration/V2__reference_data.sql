@@ -0,0 +1,5 @@
+MERGE INTO genre (id_genre, name_genre) KEY (id_genre)
+VALUES (1, 'Комедия'), (2, 'Драма'), (3, 'Мультфильм'), (4, 'Триллер'), (5, 'Документальный'), (6, 'Боевик');
+
+MERGE INTO ratingMPA (id_ratingMPA, name_MPA) KEY (id_ratingMPA)
+VALUES (1, 'G'), (2, 'PG'), (3, 'PG-13'), (4, 'R'), (5, 'NC-17');
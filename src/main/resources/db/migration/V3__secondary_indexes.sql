@@ -0,0 +1,5 @@
+create index if not exists LIKE_FILM_USER_INDEX on like_film (id_user, id_film);
+create index if not exists FRIENDS_FRIEND_INDEX on friends (id_friend, id_user);
+create index if not exists GENRE_FILM_GENRE_INDEX on genre_film (id_genre, id_film);
+create index if not exists FILMS_RATING_INDEX on films (rating, id);
+create index if not exists FILMS_RELEASE_DATE_RATING_INDEX on films (release_date, rating);
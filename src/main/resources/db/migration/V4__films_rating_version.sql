@@ -0,0 +1,2 @@
+-- Номер последнего сброса счётчика лайков, попавшего в films.rating (см. LikeCounter)
+alter table films add column if not exists rating_version bigint not null default 0;
@@ -0,0 +1,3 @@
+-- Топ фильмов по жанру и году читается из FilmPopularityIndex, ни один запрос эти индексы не использует
+drop index if exists GENRE_FILM_GENRE_INDEX;
+drop index if exists FILMS_RELEASE_DATE_RATING_INDEX;
@@ -0,0 +1,172 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.LikeQueueStats;
+import ru.yandex.practicum.filmorate.model.RatingMPA;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.repository.film.FilmRepository;
+import ru.yandex.practicum.filmorate.service.UserService;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@SpringBootTest(properties = "filmorate.likes.async.enabled=true")
+@AutoConfigureTestDatabase
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+class AsyncLikeControllerTest {
+
+    @Autowired
+    private FilmController filmController;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private FilmRepository filmStorage;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        Film film = new Film();
+        film.setName("Film 1");
+        film.setDescription("Description 1");
+        film.setReleaseDate(LocalDate.of(2022, 1, 1));
+        film.setDuration(120);
+        film.setMpa(new RatingMPA(1, "G"));
+        film.setRate(5);
+        filmController.addFilm(film);
+
+        for (int i = 1; i <= 3; i++) {
+            User user = new User();
+            user.setName("User " + i);
+            user.setEmail("user" + i + "@example.com");
+            user.setLogin("user" + i);
+            user.setBirthday(LocalDate.of(1990, 5, 15));
+            userService.addUser(user);
+        }
+    }
+
+    @Test
+    void likeIsAcceptedAndWrittenAfterFlush() {
+        ResponseEntity<Void> response = filmController.likeFilm(1, 1);
+
+        Assertions.assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+        long sequence = Long.parseLong(response.getHeaders().getFirst(FilmController.LIKE_SEQUENCE_HEADER));
+
+        ResponseEntity<LikeQueueStats> flushed = filmController.flushLikes(1, sequence, 5000);
+
+        Assertions.assertEquals(HttpStatus.OK, flushed.getStatusCode());
+        Assertions.assertTrue(flushed.getBody().isComplete());
+        Assertions.assertEquals(1, filmStorage.getById(1).getLikesCount());
+    }
+
+    @Test
+    void togglesFromSameUserCollapseToLastState() {
+        filmController.likeFilm(1, 1);
+        filmController.unlikeFilm(1, 1);
+        filmController.likeFilm(1, 1);
+        filmController.likeFilm(1, 2);
+        filmController.unlikeFilm(1, 2);
+        filmController.likeFilm(1, 3);
+        filmController.likeFilm(1, 3);
+
+        LikeQueueStats stats = filmController.flushLikes(1, 0, 5000).getBody();
+
+        Assertions.assertTrue(stats.isComplete());
+        Assertions.assertEquals(7, stats.getWritten());
+        Assertions.assertEquals(0, stats.getFailed());
+        Assertions.assertEquals(2, filmStorage.getById(1).getLikesCount());
+    }
+
+    @Test
+    void unlikeOfWrittenLikeRemovesIt() {
+        filmController.likeFilm(1, 1);
+        filmController.flushLikes(1, 0, 5000);
+
+        filmController.unlikeFilm(1, 1);
+        filmController.flushLikes(1, 0, 5000);
+
+        Assertions.assertEquals(0, filmStorage.getById(1).getLikesCount());
+    }
+
+    @Test
+    void likeFromUnknownUserIsRejectedBeforeQueue() {
+        Assertions.assertThrows(NotFoundException.class, () -> filmController.likeFilm(1, 42));
+        Assertions.assertThrows(NotFoundException.class, () -> filmController.likeFilm(42, 1));
+
+        Assertions.assertEquals(0, filmController.flushLikes(1, 0, 0).getBody().getEnqueued());
+    }
+
+    @Test
+    void ackReportsLikeThatCouldNotBeStored() {
+        Film other = new Film();
+        other.setName("Film 2");
+        other.setDescription("Description 2");
+        other.setReleaseDate(LocalDate.of(2022, 2, 1));
+        other.setDuration(90);
+        other.setMpa(new RatingMPA(1, "G"));
+        filmController.addFilm(other);
+        // Фильм пропадает из базы после проверки при постановке в очередь, как при удалении в момент записи
+        jdbcTemplate.update("DELETE FROM films WHERE id = ?", 1);
+
+        long lostSequence = sequenceOf(filmController.likeFilm(1, 1));
+        long storedSequence = sequenceOf(filmController.likeFilm(2, 1));
+
+        ResponseEntity<LikeQueueStats> lost = filmController.flushLikes(1, lostSequence, 5000);
+
+        Assertions.assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, lost.getStatusCode());
+        Assertions.assertFalse(lost.getBody().isComplete());
+        Assertions.assertTrue(lost.getBody().isFailedInRange());
+        Assertions.assertEquals(List.of(lostSequence), lost.getBody().getFailedSequences());
+
+        ResponseEntity<LikeQueueStats> stored = filmController.flushLikes(storedSequence, storedSequence, 5000);
+
+        Assertions.assertEquals(HttpStatus.OK, stored.getStatusCode());
+        Assertions.assertTrue(stored.getBody().isComplete());
+        Assertions.assertEquals(1, filmStorage.getById(2).getLikesCount());
+        Assertions.assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, filmController.flushLikes(1, 0, 5000).getStatusCode());
+    }
+
+    @Test
+    void plainFlushIsNotFailedByEarlierLostLike() {
+        Film other = new Film();
+        other.setName("Film 2");
+        other.setDescription("Description 2");
+        other.setReleaseDate(LocalDate.of(2022, 2, 1));
+        other.setDuration(90);
+        other.setMpa(new RatingMPA(1, "G"));
+        filmController.addFilm(other);
+        jdbcTemplate.update("DELETE FROM films WHERE id = ?", 1);
+
+        long lostSequence = sequenceOf(filmController.likeFilm(1, 1));
+        Assertions.assertEquals(HttpStatus.INTERNAL_SERVER_ERROR,
+                filmController.flushLikes(0, lostSequence, 5000).getStatusCode());
+
+        filmController.likeFilm(2, 1);
+        ResponseEntity<LikeQueueStats> flushed = filmController.flushLikes(0, 0, 5000);
+
+        Assertions.assertEquals(HttpStatus.OK, flushed.getStatusCode());
+        Assertions.assertTrue(flushed.getBody().isComplete());
+        Assertions.assertEquals(1, flushed.getBody().getFailed());
+        Assertions.assertEquals(1, filmStorage.getById(2).getLikesCount());
+    }
+
+    private static long sequenceOf(ResponseEntity<Void> response) {
+        return Long.parseLong(response.getHeaders().getFirst(FilmController.LIKE_SEQUENCE_HEADER));
+    }
+}
@@ -1,29 +1,48 @@
 package ru.yandex.practicum.filmorate.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.HttpStatus;
 import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.web.server.ResponseStatusException;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.metrics.SqlRequestMetricsFilter;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.ImportReport;
 import ru.yandex.practicum.filmorate.model.RatingMPA;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.repository.film.FilmRepository;
 import ru.yandex.practicum.filmorate.service.FilmService;
 import ru.yandex.practicum.filmorate.service.UserService;
 
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.util.Arrays;
+import java.util.LinkedHashSet;
 import java.util.List;
 
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static ru.yandex.practicum.filmorate.metrics.SqlStatementBudget.assertMaxStatements;
+
 @SpringBootTest
 @AutoConfigureTestDatabase
+@AutoConfigureMockMvc
 @RequiredArgsConstructor(onConstructor_ = @Autowired)
 @DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
 class FilmControllerTest {
@@ -40,6 +59,15 @@ class FilmControllerTest {
     @Autowired
     private FilmController filmController;
 
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
     private Film film1;
     private Film film2;
     private User user1;
@@ -101,6 +129,32 @@ class FilmControllerTest {
         Assertions.assertEquals("Дата релиза не может быть до 28.12.1895", exception.getReason());
     }
 
+    @Test
+    void importFilmsReportsRejectedLines() {
+        String body = "{\"name\":\"Film 1\",\"description\":\"Description 1\",\"releaseDate\":\"2022-01-01\"," +
+                "\"duration\":120,\"mpa\":{\"id\":1},\"genres\":[{\"id\":2},{\"id\":1}]}\n" +
+                "{\"name\":\"Film 2\",\"description\":\"Description 2\",\"releaseDate\":\"1890-01-01\"," +
+                "\"duration\":120,\"mpa\":{\"id\":1}}\n" +
+                "\n" +
+                "{not json\n" +
+                "{\"name\":\"Film 3\",\"description\":\"Description 3\",\"releaseDate\":\"2022-02-01\"," +
+                "\"duration\":130,\"mpa\":{\"id\":2}}\n";
+
+        ImportReport report = filmController.importFilms(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+
+        Assertions.assertEquals(4, report.getTotal());
+        Assertions.assertEquals(2, report.getImported());
+        Assertions.assertEquals(2, report.getRejected());
+        Assertions.assertEquals(2, report.getErrors().get(0).getLine());
+        Assertions.assertEquals("Дата релиза не может быть до 28.12.1895", report.getErrors().get(0).getMessage());
+        Assertions.assertEquals(4, report.getErrors().get(1).getLine());
+
+        List<Film> films = filmController.getAllFilms();
+        Assertions.assertEquals(2, films.size());
+        Assertions.assertEquals(2, films.get(0).getGenres().size());
+        Assertions.assertEquals("PG", films.get(1).getMpa().getName());
+    }
+
     @Test
     void updateFilmValidFilm() {
         filmController.addFilm(film1);
@@ -171,6 +225,20 @@ class FilmControllerTest {
         Assertions.assertEquals(expectedFilms, actualFilms);
     }
 
+    @Test
+    void getAllFilmsRunsConstantNumberOfStatements() {
+        for (int i = 0; i < 20; i++) {
+            Film film = film1.toBuilder().id(null).name("Film " + i).build();
+            filmController.addFilm(film);
+        }
+
+        List<Film> films = assertMaxStatements(2, () -> filmController.getAllFilms());
+        Assertions.assertEquals(20, films.size());
+
+        Film byId = assertMaxStatements(4, () -> filmController.getFilmById(films.get(0).getId()));
+        Assertions.assertEquals(films.get(0).getId(), byId.getId());
+    }
+
     @Test
     void getALLFilmsReturnsEmptyListOfFilms() {
         List<Film> films = filmController.getAllFilms();
@@ -256,4 +324,53 @@ class FilmControllerTest {
         Assertions.assertEquals(film3, popularFilms.get(0));
         Assertions.assertEquals(film1, popularFilms.get(1));
     }
-}
\ No newline at end of file
+
+    @Test
+    void streamAllFilmsMatchesGetAllFilms() throws Exception {
+        film1.setGenres(new LinkedHashSet<>(List.of(new Genre(1, "Комедия"), new Genre(2, "Драма"))));
+        filmController.addFilm(film1);
+        filmController.addFilm(film2);
+        Film film3 = film1.toBuilder()
+                .id(null)
+                .name("Film 3")
+                .genres(new LinkedHashSet<>(List.of(new Genre(6, "Боевик"))))
+                .build();
+        filmController.addFilm(film3);
+
+        List<Film> streamed = List.of(objectMapper.readValue(getStream(), Film[].class));
+
+        Assertions.assertEquals(filmController.getAllFilms(), streamed);
+        Assertions.assertEquals(2, streamed.get(0).getGenres().size(), "Строки жанров одного фильма должны склеиваться");
+    }
+
+    @Test
+    void streamAllFilmsOfEmptyTable() throws Exception {
+        Assertions.assertEquals("[]", getStream());
+    }
+
+    @Test
+    void streamAllFilmsCountsStatementsOfExportThread() throws Exception {
+        filmController.addFilm(film1);
+        filmController.addFilm(film2);
+
+        getStream();
+
+        DistributionSummary statements = registry.find(SqlRequestMetricsFilter.STATEMENTS_SUMMARY)
+                .tag("uri", "/films/stream")
+                .summary();
+        Assertions.assertNotNull(statements);
+        Assertions.assertEquals(1, statements.count());
+        Assertions.assertTrue(statements.totalAmount() > 0, "Запросы выгрузки выполняются в пуле и должны учитываться");
+    }
+
+    private String getStream() throws Exception {
+        MvcResult started = mockMvc.perform(get("/films/stream"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,147 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.ImportReport;
+import ru.yandex.practicum.filmorate.model.RatingMPA;
+import ru.yandex.practicum.filmorate.repository.like.LikeFilmsRepository;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.UserService;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+@SpringBootTest
+@AutoConfigureTestDatabase
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+class ImportControllerTest {
+
+    @Autowired
+    private ImportController importController;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private FilmService filmService;
+
+    @Autowired
+    private LikeFilmsRepository likeFilms;
+
+    @Test
+    void importUsersRejectsDuplicates() {
+        ImportReport report = importController.importUsers(body(
+                "{\"email\":\"user1@example.com\",\"login\":\"user1\",\"birthday\":\"1990-05-15\"}\n" +
+                "{\"email\":\"user2@example.com\",\"login\":\"user2\",\"name\":\"User 2\",\"birthday\":\"1995-08-20\"}\n" +
+                "{\"email\":\"other@example.com\",\"login\":\"user1\",\"birthday\":\"1991-01-01\"}\n" +
+                "{\"email\":\"not an email\",\"login\":\"user3\",\"birthday\":\"1991-01-01\"}\n"));
+
+        Assertions.assertEquals(4, report.getTotal());
+        Assertions.assertEquals(2, report.getImported());
+        Assertions.assertEquals(1, report.getDuplicates());
+        Assertions.assertEquals(2, report.getRejected());
+        Assertions.assertEquals(2, userService.getAllUsers().size());
+        Assertions.assertEquals("user1", userService.getUserById(1).getName());
+    }
+
+    @Test
+    void importUsersRetriesFailedBatchRowByRow() {
+        String tooLongLogin = "l".repeat(60);
+        ImportReport report = importController.importUsers(body(
+                "{\"email\":\"user1@example.com\",\"login\":\"user1\",\"birthday\":\"1990-05-15\"}\n" +
+                "{\"email\":\"user2@example.com\",\"login\":\"" + tooLongLogin + "\",\"birthday\":\"1995-08-20\"}\n" +
+                "{\"email\":\"user3@example.com\",\"login\":\"user3\",\"birthday\":\"1995-08-20\"}\n"));
+
+        Assertions.assertEquals(3, report.getTotal());
+        Assertions.assertEquals(2, report.getImported());
+        Assertions.assertEquals(1, report.getRejected());
+        Assertions.assertEquals(2, report.getErrors().get(0).getLine());
+        Assertions.assertEquals(2, userService.getAllUsers().size());
+    }
+
+    @Test
+    void importUsersRejectsOversizedLine() {
+        ImportReport report = importController.importUsers(body(
+                "{\"email\":\"user1@example.com\",\"login\":\"user1\",\"name\":\"" + "x".repeat(70_000)
+                        + "\",\"birthday\":\"1990-05-15\"}\r\n" +
+                "{\"email\":\"user2@example.com\",\"login\":\"user2\",\"birthday\":\"1995-08-20\"}\r\n"));
+
+        Assertions.assertEquals(2, report.getTotal());
+        Assertions.assertEquals(1, report.getImported());
+        Assertions.assertEquals(1, report.getRejected());
+        Assertions.assertEquals(1, report.getErrors().get(0).getLine());
+        Assertions.assertEquals("user2", userService.getUserById(1).getLogin());
+    }
+
+    @Test
+    void importFriendsSkipsDuplicatesAndUnknownUsers() {
+        importController.importUsers(body(
+                "{\"email\":\"user1@example.com\",\"login\":\"user1\",\"birthday\":\"1990-05-15\"}\n" +
+                "{\"email\":\"user2@example.com\",\"login\":\"user2\",\"birthday\":\"1995-08-20\"}\n" +
+                "{\"email\":\"user3@example.com\",\"login\":\"user3\",\"birthday\":\"1995-08-20\"}\n"));
+
+        ImportReport report = importController.importFriends(body(
+                "id_user,id_friend\n1,2\n1,3\n1,2\n2,2\n2,100\nfoo\n"));
+
+        Assertions.assertEquals(6, report.getTotal());
+        Assertions.assertEquals(2, report.getImported());
+        Assertions.assertEquals(1, report.getDuplicates());
+        Assertions.assertEquals(3, report.getRejected());
+        Assertions.assertEquals(2, userService.getFriendsList(1).size());
+    }
+
+    @Test
+    void importFriendsTreatsReversedPairAsDuplicate() {
+        importController.importUsers(body(
+                "{\"email\":\"user1@example.com\",\"login\":\"user1\",\"birthday\":\"1990-05-15\"}\n" +
+                "{\"email\":\"user2@example.com\",\"login\":\"user2\",\"birthday\":\"1995-08-20\"}\n" +
+                "{\"email\":\"user3@example.com\",\"login\":\"user3\",\"birthday\":\"1995-08-20\"}\n"));
+        userService.addFriend(1, 3);
+
+        ImportReport report = importController.importFriends(body("1,2\n2,1\n3,1\n2,100\n2,100\n"));
+
+        Assertions.assertEquals(5, report.getTotal());
+        Assertions.assertEquals(1, report.getImported());
+        Assertions.assertEquals(2, report.getDuplicates());
+        Assertions.assertEquals(2, report.getRejected());
+        Assertions.assertEquals(2, userService.getFriendsList(1).size());
+        Assertions.assertTrue(userService.getFriendsList(2).isEmpty());
+    }
+
+    @Test
+    void importLikesUpdatesRating() {
+        importController.importUsers(body(
+                "{\"email\":\"user1@example.com\",\"login\":\"user1\",\"birthday\":\"1990-05-15\"}\n" +
+                "{\"email\":\"user2@example.com\",\"login\":\"user2\",\"birthday\":\"1995-08-20\"}\n"));
+        Film film = new Film();
+        film.setName("Film 1");
+        film.setDescription("Description 1");
+        film.setReleaseDate(LocalDate.of(2022, 1, 1));
+        film.setDuration(120);
+        film.setMpa(new RatingMPA(1, "G"));
+        film.setRate(0);
+        filmService.addFilm(film);
+
+        ImportReport report = importController.importLikes(body("1,1\n1,2\n1,2\n2,1\n"));
+
+        Assertions.assertEquals(4, report.getTotal());
+        Assertions.assertEquals(2, report.getImported());
+        Assertions.assertEquals(1, report.getDuplicates());
+        Assertions.assertEquals(1, report.getRejected());
+        Assertions.assertEquals(2, likeFilms.getLikeCount(1));
+        Assertions.assertEquals(2, filmService.getPopularFilms(1).get(0).getRate());
+    }
+
+    private static InputStream body(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
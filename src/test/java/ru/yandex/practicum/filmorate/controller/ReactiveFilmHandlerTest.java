@@ -0,0 +1,153 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import ru.yandex.practicum.filmorate.config.ReactiveServerConfig;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.RatingMPA;
+
+import java.time.LocalDate;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * Запросы идут в настоящий сервер Reactor Netty на случайном порту. JDBC и R2DBC смотрят в одну in-memory H2,
+ * поэтому фильмы, добавленные обычным API, видны в {@code /v2/films}.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "filmorate.reactive.port=0",
+        "spring.datasource.url=jdbc:h2:mem:reactive-films;DB_CLOSE_DELAY=-1",
+        "spring.r2dbc.url=r2dbc:h2:mem:///reactive-films?options=DB_CLOSE_DELAY=-1"
+})
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+class ReactiveFilmHandlerTest {
+    private static final String[] GENRES = {"Комедия", "Драма", "Мультфильм"};
+
+    private static final String[] RATINGS = {"G", "PG", "PG-13"};
+
+    @Autowired
+    private FilmController filmController;
+
+    @Autowired
+    private ReactiveServerConfig reactiveServer;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private WebTestClient client;
+
+    @BeforeEach
+    void setUp() {
+        client = WebTestClient.bindToServer()
+                .baseUrl("http://localhost:" + reactiveServer.getPort())
+                .codecs(codecs -> codecs.defaultCodecs().jackson2JsonDecoder(new Jackson2JsonDecoder(objectMapper)))
+                .build();
+    }
+
+    @Test
+    void ndjsonStreamMatchesBlockingApi() {
+        addFilms();
+        List<Film> expected = filmController.getAllFilms();
+
+        List<Film> streamed = client.get().uri("/v2/films")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .returnResult(Film.class)
+                .getResponseBody()
+                .collectList()
+                .block();
+        Assertions.assertEquals(expected, streamed);
+
+        List<Film> page = client.get().uri("/v2/films?after={after}&limit=1", expected.get(0).getId())
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(Film.class)
+                .getResponseBody()
+                .collectList()
+                .block();
+        Assertions.assertEquals(List.of(expected.get(1)), page);
+
+        client.get().uri("/v2/films/{id}", expected.get(2).getId())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(Film.class).isEqualTo(expected.get(2));
+
+        client.get().uri("/v2/films/{id}", 100_000)
+                .exchange()
+                .expectStatus().isNotFound()
+                .expectBody().jsonPath("$.message").isEqualTo("Объект не найден");
+    }
+
+    @Test
+    void serverSentEventsCarryFilms() {
+        addFilms();
+
+        List<Film> streamed = client.get().uri("/v2/films")
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.TEXT_EVENT_STREAM)
+                .returnResult(Film.class)
+                .getResponseBody()
+                .collectList()
+                .block();
+        Assertions.assertEquals(filmController.getAllFilms(), streamed);
+    }
+
+    @Test
+    void jsonResponseIsCappedToOnePage() {
+        addFilms();
+
+        client.get().uri("/v2/films?limit=100000")
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(Film.class).isEqualTo(filmController.getAllFilms());
+    }
+
+    @Test
+    void invalidParametersAreRejected() {
+        client.get().uri("/v2/films?limit=0")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isBadRequest();
+
+        client.get().uri("/v2/films?after=first")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody().jsonPath("$.message").isEqualTo("Параметр after должен быть целым числом");
+    }
+
+    private void addFilms() {
+        for (int i = 1; i <= 3; i++) {
+            Film film = new Film();
+            film.setName("Film " + i);
+            film.setDescription("Description " + i);
+            film.setReleaseDate(LocalDate.of(2020, 1, i));
+            film.setDuration(100 + i);
+            film.setMpa(new RatingMPA(i, RATINGS[i - 1]));
+            film.setRate(0);
+            LinkedHashSet<Genre> genres = new LinkedHashSet<>();
+            for (int genreId = 1; genreId <= i; genreId++) {
+                genres.add(new Genre(genreId, GENRES[genreId - 1]));
+            }
+            film.setGenres(genres);
+            filmController.addFilm(film);
+        }
+    }
+}
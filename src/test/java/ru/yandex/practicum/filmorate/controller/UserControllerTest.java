@@ -15,6 +15,8 @@ import ru.yandex.practicum.filmorate.model.User;
 import java.time.LocalDate;
 import java.util.List;
 
+import static ru.yandex.practicum.filmorate.metrics.SqlStatementBudget.assertMaxStatements;
+
 @SpringBootTest
 @AutoConfigureTestDatabase
 @RequiredArgsConstructor(onConstructor_ = @Autowired)
@@ -210,6 +212,28 @@ class UserControllerTest {
         Assertions.assertEquals(0, commonFriends.size());
     }
 
+    @Test
+    void friendListsRunConstantNumberOfStatements() {
+        userController.addUser(user1);
+        userController.addUser(user2);
+        for (int i = 0; i < 10; i++) {
+            User friend = new User();
+            friend.setEmail("friend" + i + "@example.com");
+            friend.setLogin("friend" + i);
+            friend.setName("Friend " + i);
+            friend.setBirthday(LocalDate.of(1991, 8, 20));
+            userController.addUser(friend);
+            userController.addFriend(user1.getId(), friend.getId());
+            userController.addFriend(user2.getId(), friend.getId());
+        }
+
+        List<User> friends = assertMaxStatements(2, () -> userController.getFriendsList(user1.getId()));
+        Assertions.assertEquals(10, friends.size());
+
+        List<User> common = assertMaxStatements(2, () -> userController.getCommonFriends(user1.getId(), user2.getId()));
+        Assertions.assertEquals(10, common.size());
+    }
+
     @Test
     void getCommonFriendsInvalidUser() {
         NotFoundException exception = Assertions.assertThrows(NotFoundException.class, () ->
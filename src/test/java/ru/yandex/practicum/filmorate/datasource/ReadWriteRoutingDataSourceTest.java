@@ -0,0 +1,151 @@
+package ru.yandex.practicum.filmorate.datasource;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import ru.yandex.practicum.filmorate.datasource.ReadWriteRoutingDataSource.Route;
+
+import javax.servlet.http.Cookie;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Основная база и реплика — две разные in-memory H2 с одной схемой. Реплика не получает записей приложения,
+ * поэтому по содержимому ответа видно, какая база его отдала. Время задаётся часами теста.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=" + ReadWriteRoutingDataSourceTest.PRIMARY_URL,
+        "filmorate.datasource.replica.url=" + ReadWriteRoutingDataSourceTest.REPLICA_URL,
+        "filmorate.datasource.replica.lag-ms=1000",
+        "filmorate.datasource.replica.read-your-writes=true"
+})
+@AutoConfigureMockMvc
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+class ReadWriteRoutingDataSourceTest {
+    static final String PRIMARY_URL = "jdbc:h2:mem:routing-primary;DB_CLOSE_DELAY=-1";
+
+    static final String REPLICA_URL = "jdbc:h2:mem:routing-replica;DB_CLOSE_DELAY=-1";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ReadWriteRoutingDataSource routingDataSource;
+
+    @Autowired
+    private MutableClock clock;
+
+    @BeforeAll
+    static void migrateReplica() {
+        Flyway.configure().dataSource(REPLICA_URL, "postgres", "123").load().migrate();
+    }
+
+    @Test
+    public void testOnlyWritingClientReadsFromPrimaryUntilLagHasPassed() throws Exception {
+        Cookie lastWrite = addUser("routing");
+
+        long replicaBefore = routingDataSource.getRouteCount(Route.REPLICA);
+        mockMvc.perform(get("/users").cookie(lastWrite))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].login", hasItem("routing")));
+        assertEquals(replicaBefore, routingDataSource.getRouteCount(Route.REPLICA),
+                "Сразу после записи чтения писавшего клиента должны идти в основную базу");
+
+        mockMvc.perform(get("/users"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].login", not(hasItem("routing"))));
+        assertEquals(replicaBefore + 1, routingDataSource.getRouteCount(Route.REPLICA),
+                "Чтения других клиентов должны идти в реплику");
+
+        clock.advance(Duration.ofMillis(1000));
+        mockMvc.perform(get("/users").cookie(lastWrite))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].login", not(hasItem("routing"))));
+        assertEquals(replicaBefore + 2, routingDataSource.getRouteCount(Route.REPLICA));
+    }
+
+    @Test
+    public void testReplicaReadsAreNotCached() throws Exception {
+        Cookie lastWrite = addUser("cached");
+        int userId = new JdbcTemplate(new DriverManagerDataSource(PRIMARY_URL, "postgres", "123"))
+                .queryForObject("SELECT id FROM users WHERE login = 'cached'", Integer.class);
+        new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "postgres", "123"))
+                .update("INSERT INTO users (id, name, email, login, birthday) VALUES (?, ?, ?, ?, ?)",
+                        userId, "Устаревшее имя", "cached@example.com", "cached", "1990-05-15");
+
+        mockMvc.perform(get("/users/{id}", userId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("Устаревшее имя"));
+
+        mockMvc.perform(get("/users/{id}", userId).cookie(lastWrite))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("John Doe"));
+    }
+
+    private Cookie addUser(String login) throws Exception {
+        MvcResult result = mockMvc.perform(post("/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"John Doe\",\"email\":\"" + login + "@example.com\",\"login\":\"" + login
+                                + "\",\"birthday\":\"1990-05-15\"}"))
+                .andExpect(status().isOk())
+                .andReturn();
+        Cookie lastWrite = result.getResponse().getCookie(ReadYourWritesFilter.COOKIE_NAME);
+        assertNotNull(lastWrite, "После записи клиент должен получить момент её фиксации");
+        assertEquals(clock.millis(), Long.parseLong(lastWrite.getValue()));
+        return lastWrite;
+    }
+
+    @TestConfiguration
+    static class ClockConfig {
+        @Bean
+        public MutableClock clock() {
+            return new MutableClock();
+        }
+    }
+
+    static class MutableClock extends Clock {
+        private volatile Instant now = Instant.parse("2026-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.RatingMPA;
+import ru.yandex.practicum.filmorate.repository.film.FilmRepository;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@AutoConfigureTestDatabase
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+class RepositoryMetricsTest {
+    @Autowired
+    private FilmRepository filmDbStorage;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Test
+    public void testRepositoryMethodsAndStatementsAreTimed() {
+        Film film = new Film();
+        film.setName("Film Name");
+        film.setDescription("Film Description");
+        film.setReleaseDate(LocalDate.of(2022, 1, 1));
+        film.setDuration(120);
+        film.setMpa(new RatingMPA(1, "G"));
+        film.setRate(0);
+        filmDbStorage.add(film);
+
+        filmDbStorage.getAll();
+        filmDbStorage.getAll();
+
+        Timer getAll = registry.find(RepositoryTimingAspect.REPOSITORY_TIMER)
+                .tag("class", "FilmRepository")
+                .tag("method", "getAll")
+                .timer();
+        assertNotNull(getAll);
+        assertEquals(2, getAll.count());
+
+        long inserts = registry.find(MeteredDataSource.STATEMENT_TIMER).tag("type", "insert").timers().stream()
+                .mapToLong(Timer::count)
+                .sum();
+        assertTrue(inserts >= 1);
+
+        double rowsRead = registry.find(MeteredDataSource.ROWS_SUMMARY).tag("type", "select").summaries().stream()
+                .mapToDouble(DistributionSummary::totalAmount)
+                .sum();
+        assertTrue(rowsRead >= 2);
+    }
+}
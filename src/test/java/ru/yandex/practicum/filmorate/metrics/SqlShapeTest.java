@@ -0,0 +1,25 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SqlShapeTest {
+
+    @Test
+    public void testParameterListsAndLiteralsCollapse() {
+        assertEquals("SELECT * FROM users u WHERE u.id IN (?)",
+                SqlShape.of("SELECT * FROM users u\n WHERE u.id IN (?, ?,  ?)"));
+        assertEquals("SELECT * FROM films WHERE name = ? AND id > ? LIMIT ?",
+                SqlShape.of("SELECT * FROM films WHERE name = 'it''s' AND id > 10 LIMIT 5"));
+        assertEquals("INSERT INTO friends (id_user, id_friend) VALUES (?)",
+                SqlShape.of("INSERT INTO friends (id_user, id_friend) VALUES (?, ?), (?, ?)"));
+    }
+
+    @Test
+    public void testTypeOf() {
+        assertEquals("select", SqlShape.typeOf("  SELECT 1"));
+        assertEquals("delete", SqlShape.typeOf("delete from films"));
+        assertEquals("other", SqlShape.typeOf("SET QUERY_STATISTICS TRUE"));
+    }
+}
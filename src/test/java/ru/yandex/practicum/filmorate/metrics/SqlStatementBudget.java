@@ -0,0 +1,38 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Проверка для тестов: действие должно уложиться в заданное число SQL-операторов.
+ * При превышении тест падает и показывает повторяющиеся формы запросов.
+ */
+public final class SqlStatementBudget {
+    private static final int REPEAT_THRESHOLD = 2;
+
+    private SqlStatementBudget() {
+    }
+
+    public static <T> T assertMaxStatements(int budget, Supplier<T> action) {
+        SqlRequestStats stats = SqlRequestStats.begin();
+        T result;
+        try {
+            result = action.get();
+        } finally {
+            stats.end();
+        }
+        if (stats.getStatements() > budget) {
+            fail("Ожидалось не больше " + budget + " SQL-операторов, выполнено " + stats.getStatements()
+                    + ". Повторяющиеся запросы:" + stats.describe(REPEAT_THRESHOLD));
+        }
+        return result;
+    }
+
+    public static void assertMaxStatements(int budget, Runnable action) {
+        assertMaxStatements(budget, () -> {
+            action.run();
+            return null;
+        });
+    }
+}
@@ -0,0 +1,63 @@
+package ru.yandex.practicum.filmorate.repository;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class EntityCacheTest {
+
+    @Test
+    public void testInvalidatingOtherKeysDoesNotBlockLoads() {
+        EntityCache<Integer, String> cache = new EntityCache<>(100, 60_000, value -> value);
+        long stamp = cache.stamp();
+        cache.invalidate(2);
+        cache.invalidate(3);
+
+        cache.put(1, "first", stamp);
+        assertEquals("first", cache.getIfPresent(1));
+    }
+
+    @Test
+    public void testLoadRacingWithInvalidationOfSameKeyIsDropped() {
+        EntityCache<Integer, String> cache = new EntityCache<>(100, 60_000, value -> value);
+        long stamp = cache.stamp();
+        cache.invalidate(1);
+
+        cache.put(1, "stale", stamp);
+        assertNull(cache.getIfPresent(1));
+
+        cache.put(1, "fresh", cache.stamp());
+        assertEquals("fresh", cache.getIfPresent(1));
+    }
+
+    @Test
+    public void testInvalidateAllDropsEveryLoadStartedBeforeIt() {
+        EntityCache<Integer, String> cache = new EntityCache<>(100, 60_000, value -> value);
+        long stamp = cache.stamp();
+        cache.invalidateAll();
+
+        cache.put(1, "stale", stamp);
+        assertNull(cache.getIfPresent(1));
+
+        cache.put(1, "fresh", cache.stamp());
+        assertEquals("fresh", cache.getIfPresent(1));
+    }
+
+    @Test
+    public void testEvictedTombstoneStillRejectsOlderLoads() {
+        EntityCache<Integer, String> cache = new EntityCache<>(2, 60_000, value -> value);
+        long stamp = cache.stamp();
+        cache.invalidate(1);
+        cache.invalidate(2);
+        cache.invalidate(3);
+
+        cache.put(1, "stale", stamp);
+        assertNull(cache.getIfPresent(1));
+
+        long later = cache.stamp();
+        cache.invalidate(4);
+        cache.put(1, "fresh", later);
+        assertEquals("fresh", cache.getIfPresent(1));
+    }
+}
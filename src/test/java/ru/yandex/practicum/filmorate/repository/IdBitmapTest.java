@@ -0,0 +1,52 @@
+package ru.yandex.practicum.filmorate.repository;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IdBitmapTest {
+
+    @Test
+    public void testAddGrowsAndRemoveClears() {
+        IdBitmap bitmap = new IdBitmap();
+        bitmap.add(3);
+        bitmap.add(1_000);
+
+        assertTrue(bitmap.contains(3));
+        assertTrue(bitmap.contains(1_000));
+        assertFalse(bitmap.contains(4));
+        assertFalse(bitmap.contains(-1));
+        assertFalse(bitmap.contains(100_000));
+
+        bitmap.remove(3);
+        assertFalse(bitmap.contains(3));
+        assertTrue(bitmap.contains(1_000));
+    }
+
+    @Test
+    public void testConcurrentAddsAreNotLost() throws InterruptedException {
+        IdBitmap bitmap = new IdBitmap();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        for (int thread = 0; thread < 4; thread++) {
+            int offset = thread;
+            executor.execute(() -> {
+                for (int id = offset; id < 20_000; id += 4) {
+                    bitmap.add(id);
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        BitSet expected = new BitSet();
+        expected.set(0, 20_000);
+        assertEquals(expected, bitmap.toBitSet());
+    }
+}
@@ -0,0 +1,73 @@
+package ru.yandex.practicum.filmorate.repository;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LongBloomFilterTest {
+
+    @Test
+    public void testAddedValuesAreAlwaysFound() {
+        LongBloomFilter filter = new LongBloomFilter(10_000, 0.01);
+        for (int filmId = 1; filmId <= 100; filmId++) {
+            for (int userId = 1; userId <= 100; userId++) {
+                filter.add(IdPairs.pack(filmId, userId));
+            }
+        }
+
+        for (int filmId = 1; filmId <= 100; filmId++) {
+            for (int userId = 1; userId <= 100; userId++) {
+                assertTrue(filter.mightContain(IdPairs.pack(filmId, userId)));
+            }
+        }
+    }
+
+    @Test
+    public void testFalsePositiveRateStaysNearTarget() {
+        LongBloomFilter filter = new LongBloomFilter(10_000, 0.01);
+        for (int userId = 1; userId <= 10_000; userId++) {
+            filter.add(IdPairs.pack(1, userId));
+        }
+
+        int falsePositives = 0;
+        for (int userId = 1; userId <= 100_000; userId++) {
+            if (filter.mightContain(IdPairs.pack(2, userId))) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 2_000, "Ложных срабатываний: " + falsePositives);
+        assertFalse(new LongBloomFilter(10, 0.01).mightContain(IdPairs.pack(1, 1)));
+    }
+
+    @Test
+    public void testConcurrentAddsAreNotLost() throws InterruptedException {
+        LongBloomFilter filter = new LongBloomFilter(20_000, 0.01);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        for (int thread = 0; thread < 4; thread++) {
+            int offset = thread;
+            executor.execute(() -> {
+                for (int userId = offset; userId < 20_000; userId += 4) {
+                    filter.add(IdPairs.pack(7, userId));
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        for (int userId = 0; userId < 20_000; userId++) {
+            assertTrue(filter.mightContain(IdPairs.pack(7, userId)));
+        }
+    }
+
+    @Test
+    public void testRejectsInvalidFalsePositiveRate() {
+        assertThrows(IllegalArgumentException.class, () -> new LongBloomFilter(10, 0));
+        assertThrows(IllegalArgumentException.class, () -> new LongBloomFilter(10, 1));
+    }
+}
@@ -0,0 +1,449 @@
+package ru.yandex.practicum.filmorate.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcOperations;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcOperations;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.util.ClassUtils;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.RatingMPA;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.repository.film.FilmAssembler;
+import ru.yandex.practicum.filmorate.repository.film.FilmPopularityIndex;
+import ru.yandex.practicum.filmorate.repository.film.FilmRepository;
+import ru.yandex.practicum.filmorate.repository.film.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.repository.film.ReactiveFilmRepository;
+import ru.yandex.practicum.filmorate.repository.friend.FriendsRepository;
+import ru.yandex.practicum.filmorate.repository.friend.FriendshipGraph;
+import ru.yandex.practicum.filmorate.repository.genre.GenreFilmRepository;
+import ru.yandex.practicum.filmorate.repository.like.LikeCounter;
+import ru.yandex.practicum.filmorate.repository.like.LikeFilmsRepository;
+import ru.yandex.practicum.filmorate.repository.like.LikeFilter;
+import ru.yandex.practicum.filmorate.repository.like.LikeMatrix;
+import ru.yandex.practicum.filmorate.repository.rating.RatingMPARepository;
+import ru.yandex.practicum.filmorate.repository.user.UserRepository;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Вызывает каждый публичный метод каждого компонента пакета {@code repository}, который ходит в базу
+ * (JDBC или R2DBC), собирает выполненный SQL из статистики H2 и проверяет план каждого оператора.
+ * Полное чтение допустимо только для первой таблицы оператора без {@code WHERE} (загрузка индексов в память,
+ * выгрузка всех фильмов); все остальные обращения, в том числе внутренние стороны соединений, должны идти
+ * по индексу с условием. Список компонентов и методов берётся из контекста, поэтому новый метод без вызова
+ * здесь роняет тест.
+ * <p>
+ * JDBC и R2DBC смотрят в одну in-memory H2, кэши сущностей выключены, чтобы каждое чтение доходило до базы.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:query-plans;DB_CLOSE_DELAY=-1",
+        "spring.r2dbc.url=r2dbc:h2:mem:///query-plans?options=DB_CLOSE_DELAY=-1",
+        "filmorate.films.cache.max-size=0",
+        "filmorate.users.cache.max-size=0"
+})
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+class QueryPlanTest {
+    /**
+     * Обращение к таблице в плане H2: полное сканирование, индекс без условия (тоже полный проход) или поиск по индексу.
+     */
+    private static final Pattern TABLE_ACCESS = Pattern.compile("/\\* PUBLIC\\.(\\w+?)(\\.tableScan)?(: [^*]+)? \\*/");
+
+    private static final String REPOSITORY_PACKAGE = "ru.yandex.practicum.filmorate.repository";
+
+    private final Set<String> exercised = new HashSet<>();
+
+    @Autowired
+    private ApplicationContext context;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private FilmRepository filmDbStorage;
+
+    @Autowired
+    private FilmAssembler filmAssembler;
+
+    @Autowired
+    private FilmPopularityIndex popularityIndex;
+
+    @Autowired
+    private FilmSearchIndex searchIndex;
+
+    @Autowired
+    private ReactiveFilmRepository reactiveFilmRepository;
+
+    @Autowired
+    private UserRepository userDbStorage;
+
+    @Autowired
+    private FriendsRepository friendsStorageDb;
+
+    @Autowired
+    private FriendshipGraph friendshipGraph;
+
+    @Autowired
+    private LikeFilmsRepository likeFilmsStorageDb;
+
+    @Autowired
+    private LikeCounter likeCounter;
+
+    @Autowired
+    private LikeFilter likeFilter;
+
+    @Autowired
+    private LikeMatrix likeMatrix;
+
+    @Autowired
+    private GenreFilmRepository genreFilmStorageDb;
+
+    @Autowired
+    private RatingMPARepository ratingMpaStorageDb;
+
+    @Test
+    public void testRepositoryQueriesUseIndexes() {
+        jdbcTemplate.execute("SET QUERY_STATISTICS_MAX_ENTRIES 1000");
+        jdbcTemplate.execute("SET QUERY_STATISTICS TRUE");
+
+        exerciseRepositories();
+
+        Set<String> missing = new TreeSet<>(repositoryMethods());
+        missing.removeAll(exercised);
+        assertTrue(missing.isEmpty(), "Методы репозиториев, SQL которых не проверен: " + missing);
+
+        List<String> statements = jdbcTemplate.queryForList(
+                "SELECT SQL_STATEMENT FROM INFORMATION_SCHEMA.QUERY_STATISTICS", String.class);
+        Map<String, String> plans = new LinkedHashMap<>();
+        for (String sql : statements) {
+            if (isExplainable(sql)) {
+                plans.put(sql, explain(sql));
+            }
+        }
+        assertFalse(plans.isEmpty(), "Не собрано ни одного запроса");
+
+        List<String> scans = new ArrayList<>();
+        plans.forEach((sql, plan) -> {
+            if (hasFullScan(sql, plan)) {
+                scans.add(sql + System.lineSeparator() + "    -> " + plan);
+            }
+        });
+        assertTrue(scans.isEmpty(), "Запросы без индекса:" + System.lineSeparator()
+                + String.join(System.lineSeparator(), scans));
+    }
+
+    private void exerciseRepositories() {
+        call(likeCounter, "init", likeCounter::init);
+
+        User first = callAndGet(userDbStorage, "add", () -> userDbStorage.add(newUser("first")));
+        User second = userDbStorage.add(newUser("second"));
+        User third = userDbStorage.add(newUser("third"));
+        List<User> batch = callAndGet(userDbStorage, "addAll", () ->
+                userDbStorage.addAll(List.of(newUser("fourth"), newUser("fifth"))));
+        call(userDbStorage, "loadIds", userDbStorage::loadIds);
+        call(userDbStorage, "getAll", userDbStorage::getAll);
+        call(userDbStorage, "getById", () -> userDbStorage.getById(first.getId()));
+        call(userDbStorage, "getByIds", () -> userDbStorage.getByIds(new int[]{second.getId(), third.getId()}));
+        call(userDbStorage, "getIdSet", userDbStorage::getIdSet);
+        call(userDbStorage, "isExist", () -> userDbStorage.isExist(first.getId()));
+        call(userDbStorage, "forEachLoginAndEmail", () -> userDbStorage.forEachLoginAndEmail((login, email) -> {
+        }));
+        call(userDbStorage, "update", () -> {
+            second.setName("Second Updated");
+            userDbStorage.update(second);
+        });
+
+        Film film = newFilm("Film Name");
+        LinkedHashSet<Genre> genres = new LinkedHashSet<>();
+        genres.add(new Genre(1, "Комедия"));
+        genres.add(new Genre(2, "Драма"));
+        film.setGenres(genres);
+        Film added = callAndGet(filmDbStorage, "add", () -> filmDbStorage.add(film));
+        Film other = filmDbStorage.add(newFilm("Other Film"));
+        call(filmDbStorage, "addAll", () -> filmDbStorage.addAll(List.of(newFilm("Third Film"), newFilm("Fourth Film"))));
+        call(filmDbStorage, "update", () -> {
+            added.setDescription("Updated Description");
+            added.setGenres(new LinkedHashSet<>(List.of(new Genre(2, "Драма"), new Genre(3, "Мультфильм"))));
+            filmDbStorage.update(added);
+        });
+        List<Integer> filmIds = List.of(added.getId(), other.getId());
+        call(filmDbStorage, "loadIds", filmDbStorage::loadIds);
+        call(filmDbStorage, "getAll", filmDbStorage::getAll);
+        call(filmDbStorage, "streamAll", () -> filmDbStorage.streamAll(streamed -> {
+        }));
+        call(filmDbStorage, "getPage", () -> {
+            filmDbStorage.getPage(0, 10);
+            filmDbStorage.getPage(added.getId(), 1);
+        });
+        call(filmDbStorage, "getById", () -> filmDbStorage.getById(added.getId()));
+        call(filmDbStorage, "getByIds", () -> filmDbStorage.getByIds(filmIds));
+        call(filmDbStorage, "getPopular", () -> {
+            filmDbStorage.getPopular(10);
+            filmDbStorage.getPopular(10, 2, 2022);
+        });
+        call(filmDbStorage, "search", () -> filmDbStorage.search("Film", 0, 10));
+        call(filmDbStorage, "getCacheStats", filmDbStorage::getCacheStats);
+        call(filmDbStorage, "getIdSet", filmDbStorage::getIdSet);
+        call(filmDbStorage, "isExist", () -> filmDbStorage.isExist(added.getId()));
+        call(filmDbStorage, "isExistGenreFilm", () -> filmDbStorage.isExistGenreFilm(added.getId(), 2));
+
+        call(filmAssembler, "assemble", () -> filmAssembler.assemble(filmIds));
+        call(filmAssembler, "assembleWithLikes", () -> filmAssembler.assembleWithLikes(filmIds));
+
+        call(reactiveFilmRepository, "findAll", () -> {
+            reactiveFilmRepository.findAll(0, null).collectList().block();
+            reactiveFilmRepository.findAll(0, 10).collectList().block();
+        });
+        call(reactiveFilmRepository, "findById", () -> reactiveFilmRepository.findById(added.getId()).block());
+
+        call(genreFilmStorageDb, "reload", genreFilmStorageDb::reload);
+        call(genreFilmStorageDb, "getAll", genreFilmStorageDb::getAll);
+        call(genreFilmStorageDb, "getById", () -> genreFilmStorageDb.getById(1));
+        call(genreFilmStorageDb, "isExist", () -> genreFilmStorageDb.isExist(1));
+        call(genreFilmStorageDb, "getForFilm", () -> genreFilmStorageDb.getForFilm(added.getId()));
+        call(genreFilmStorageDb, "saveForFilm", () -> genreFilmStorageDb.saveForFilm(added.getId(),
+                List.of(new Genre(3, "Мультфильм"), new Genre(4, "Триллер"))));
+
+        call(ratingMpaStorageDb, "reload", ratingMpaStorageDb::reload);
+        call(ratingMpaStorageDb, "getAll", ratingMpaStorageDb::getAll);
+        call(ratingMpaStorageDb, "getById", () -> ratingMpaStorageDb.getById(1));
+        call(ratingMpaStorageDb, "isExist", () -> ratingMpaStorageDb.isExist(1));
+
+        call(friendsStorageDb, "addFriend", () -> {
+            friendsStorageDb.addFriend(first.getId(), second.getId());
+            friendsStorageDb.addFriend(second.getId(), first.getId());
+        });
+        call(friendsStorageDb, "addFriends", () -> friendsStorageDb.addFriends(List.of(
+                new int[]{first.getId(), third.getId()}, new int[]{second.getId(), third.getId()})));
+        call(friendsStorageDb, "forEachFriendship", () -> friendsStorageDb.forEachFriendship(pair -> {
+        }));
+        call(friendsStorageDb, "getFriendsList", () -> friendsStorageDb.getFriendsList(first.getId()));
+        call(friendsStorageDb, "getCommonFriends", () ->
+                friendsStorageDb.getCommonFriends(first.getId(), second.getId()));
+        call(friendsStorageDb, "getFriendSuggestions", () -> friendsStorageDb.getFriendSuggestions(third.getId(), 10));
+        call(friendsStorageDb, "areFriends", () -> friendsStorageDb.areFriends(first.getId(), second.getId()));
+        call(friendsStorageDb, "removeFriend", () -> friendsStorageDb.removeFriend(first.getId(), second.getId()));
+
+        call(likeFilmsStorageDb, "likeForFilm", () -> likeFilmsStorageDb.likeForFilm(added.getId(), first.getId()));
+        call(likeFilmsStorageDb, "likeForFilms", () -> likeFilmsStorageDb.likeForFilms(List.of(
+                new int[]{added.getId(), second.getId()}, new int[]{other.getId(), second.getId()})));
+        call(likeFilmsStorageDb, "addLike", () -> likeFilmsStorageDb.addLike(other.getId(), first.getId()));
+        call(likeFilmsStorageDb, "plusRateForFilm", () -> likeFilmsStorageDb.plusRateForFilm(other.getId()));
+        call(likeFilmsStorageDb, "isExistLike", () -> likeFilmsStorageDb.isExistLike(added.getId(), first.getId()));
+        call(likeFilmsStorageDb, "getLikeCount", () -> likeFilmsStorageDb.getLikeCount(added.getId()));
+        call(likeFilmsStorageDb, "forEachLike", () -> likeFilmsStorageDb.forEachLike(pair -> {
+        }));
+        call(filmDbStorage, "getRecommendations", () -> filmDbStorage.getRecommendations(third.getId(), 10));
+
+        call(likeCounter, "add", () -> likeCounter.add(added.getId(), 1));
+        call(likeCounter, "getPending", () -> likeCounter.getPending(added.getId()));
+        call(likeCounter, "applyPending", () -> likeCounter.applyPending(filmDbStorage.getById(added.getId())));
+        call(likeCounter, "flush", likeCounter::flush);
+        call(likeCounter, "overrideRate", () -> likeCounter.overrideRate(added.getId()));
+        call(likeCounter, "shutdown", () -> {
+            likeCounter.add(other.getId(), 1);
+            likeCounter.shutdown();
+        });
+
+        call(likeFilmsStorageDb, "removeLike", () -> likeFilmsStorageDb.removeLike(other.getId(), first.getId()));
+        call(likeFilmsStorageDb, "minusRateForFilm", () -> likeFilmsStorageDb.minusRateForFilm(other.getId()));
+        call(likeFilmsStorageDb, "dislikeForFilm", () -> likeFilmsStorageDb.dislikeForFilm(added.getId(), first.getId()));
+        call(likeFilmsStorageDb, "dislikeForFilms", () -> likeFilmsStorageDb.dislikeForFilms(List.of(
+                new int[]{added.getId(), second.getId()}, new int[]{other.getId(), second.getId()})));
+        call(likeCounter, "discard", () -> likeCounter.discard(other.getId()));
+
+        exerciseInMemoryIndexes(added, first, second, third);
+
+        call(filmDbStorage, "remove", () -> filmDbStorage.remove(other.getId()));
+        call(userDbStorage, "remove", () -> userDbStorage.remove(batch.get(0).getId()));
+    }
+
+    /**
+     * В базу индексы ходят только при перестроении. Остальные методы меняют память в обход базы,
+     * поэтому вызываются перед перестроением, которое возвращает индексы к содержимому таблиц.
+     */
+    private void exerciseInMemoryIndexes(Film film, User first, User second, User third) {
+        int filmId = film.getId();
+        call(popularityIndex, "put", () -> popularityIndex.put(film));
+        call(popularityIndex, "adjust", () -> popularityIndex.adjust(filmId, 1));
+        call(popularityIndex, "rateOf", () -> popularityIndex.rateOf(filmId));
+        call(popularityIndex, "top", () -> {
+            popularityIndex.top(10);
+            popularityIndex.top(10, 2, 2022);
+        });
+        call(popularityIndex, "remove", () -> popularityIndex.remove(filmId));
+        call(popularityIndex, "rebuild", popularityIndex::rebuild);
+
+        call(searchIndex, "put", () -> searchIndex.put(filmId, film.getName(), film.getDescription()));
+        call(searchIndex, "search", () -> searchIndex.search("Film", 0, 10));
+        call(searchIndex, "remove", () -> searchIndex.remove(filmId));
+        call(searchIndex, "rebuild", searchIndex::rebuild);
+
+        call(friendshipGraph, "add", () -> friendshipGraph.add(first.getId(), second.getId()));
+        call(friendshipGraph, "addAll", () -> friendshipGraph.addAll(List.<int[]>of(
+                new int[]{third.getId(), first.getId()})));
+        call(friendshipGraph, "friendsOf", () -> friendshipGraph.friendsOf(first.getId()));
+        call(friendshipGraph, "followersOf", () -> friendshipGraph.followersOf(first.getId()));
+        call(friendshipGraph, "areFriends", () -> friendshipGraph.areFriends(first.getId(), second.getId()));
+        call(friendshipGraph, "commonFriends", () -> friendshipGraph.commonFriends(first.getId(), third.getId()));
+        call(friendshipGraph, "suggestFriends", () -> friendshipGraph.suggestFriends(second.getId(), 10));
+        call(friendshipGraph, "remove", () -> friendshipGraph.remove(first.getId(), second.getId()));
+        call(friendshipGraph, "removeUser", () -> friendshipGraph.removeUser(third.getId()));
+        call(friendshipGraph, "rebuild", friendshipGraph::rebuild);
+
+        call(likeMatrix, "add", () -> likeMatrix.add(filmId, first.getId()));
+        call(likeMatrix, "addAll", () -> likeMatrix.addAll(List.<int[]>of(new int[]{filmId, second.getId()})));
+        call(likeMatrix, "filmsLikedBy", () -> likeMatrix.filmsLikedBy(first.getId()));
+        call(likeMatrix, "usersWhoLiked", () -> likeMatrix.usersWhoLiked(filmId));
+        call(likeMatrix, "isLiked", () -> likeMatrix.isLiked(filmId, first.getId()));
+        call(likeMatrix, "recommendFilms", () -> likeMatrix.recommendFilms(third.getId(), 10));
+        call(likeMatrix, "remove", () -> likeMatrix.remove(filmId, first.getId()));
+        call(likeMatrix, "removeAll", () -> likeMatrix.removeAll(List.<int[]>of(new int[]{filmId, second.getId()})));
+        call(likeMatrix, "removeUser", () -> likeMatrix.removeUser(third.getId()));
+        call(likeMatrix, "removeFilm", () -> likeMatrix.removeFilm(filmId));
+        call(likeMatrix, "rebuild", likeMatrix::rebuild);
+
+        call(likeFilter, "add", () -> likeFilter.add(filmId, first.getId()));
+        call(likeFilter, "addAll", () -> likeFilter.addAll(List.<int[]>of(new int[]{filmId, second.getId()})));
+        call(likeFilter, "mightContain", () -> likeFilter.mightContain(filmId, first.getId()));
+        call(likeFilter, "markRemoved", () -> likeFilter.markRemoved(2));
+        call(likeFilter, "rebuildIfSaturated", likeFilter::rebuildIfSaturated);
+        call(likeFilter, "rebuild", likeFilter::rebuild);
+    }
+
+    private void call(Object repository, String method, Runnable action) {
+        callAndGet(repository, method, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    private <T> T callAndGet(Object repository, String method, Supplier<T> action) {
+        exercised.add(ClassUtils.getUserClass(repository).getSimpleName() + "." + method);
+        return action.get();
+    }
+
+    /**
+     * Публичные методы всех компонентов пакета {@code repository}, у которых есть доступ к базе.
+     */
+    private Set<String> repositoryMethods() {
+        Set<String> methods = new TreeSet<>();
+        for (String beanName : context.getBeanDefinitionNames()) {
+            Class<?> type = context.getType(beanName);
+            if (type == null) {
+                continue;
+            }
+            type = ClassUtils.getUserClass(type);
+            if (!type.getName().startsWith(REPOSITORY_PACKAGE + ".") || !usesDatabase(type)) {
+                continue;
+            }
+            for (Method method : type.getDeclaredMethods()) {
+                int modifiers = method.getModifiers();
+                if (Modifier.isPublic(modifiers) && !Modifier.isStatic(modifiers) && !method.isSynthetic()) {
+                    methods.add(type.getSimpleName() + "." + method.getName());
+                }
+            }
+        }
+        return methods;
+    }
+
+    private static boolean usesDatabase(Class<?> type) {
+        for (Field field : type.getDeclaredFields()) {
+            Class<?> fieldType = field.getType();
+            if (JdbcOperations.class.isAssignableFrom(fieldType)
+                    || NamedParameterJdbcOperations.class.isAssignableFrom(fieldType)
+                    || DatabaseClient.class.isAssignableFrom(fieldType)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isExplainable(String sql) {
+        String normalized = sql.trim().toUpperCase(Locale.ROOT);
+        return (normalized.startsWith("SELECT") || normalized.startsWith("UPDATE") || normalized.startsWith("DELETE")
+                || normalized.startsWith("INSERT") || normalized.startsWith("MERGE"))
+                && !normalized.contains("INFORMATION_SCHEMA")
+                && !normalized.contains("FLYWAY_SCHEMA_HISTORY");
+    }
+
+    /**
+     * Оператор без {@code WHERE} может целиком прочитать первую таблицу, остальные таблицы (внутренние стороны
+     * соединений, подзапросы) и все таблицы оператора с {@code WHERE} должны читаться поиском по индексу.
+     */
+    private static boolean hasFullScan(String sql, String plan) {
+        boolean fullReadAllowed = !sql.toUpperCase(Locale.ROOT).contains("WHERE");
+        Matcher access = TABLE_ACCESS.matcher(plan);
+        boolean firstTable = true;
+        while (access.find()) {
+            boolean fullRead = access.group(2) != null || access.group(3) == null;
+            if (fullRead && !(firstTable && fullReadAllowed)) {
+                return true;
+            }
+            firstTable = false;
+        }
+        return false;
+    }
+
+    private String explain(String sql) {
+        return jdbcTemplate.execute((ConnectionCallback<String>) connection -> {
+            // EXPLAIN без ANALYZE не требует значений параметров
+            try (PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql);
+                 ResultSet rs = statement.executeQuery()) {
+                StringBuilder plan = new StringBuilder();
+                while (rs.next()) {
+                    plan.append(rs.getString(1));
+                }
+                return plan.toString().replaceAll("\\s+", " ");
+            }
+        });
+    }
+
+    private static User newUser(String login) {
+        User user = new User();
+        user.setName(login);
+        user.setEmail(login + "@example.com");
+        user.setLogin(login);
+        user.setBirthday(LocalDate.of(1990, 5, 15));
+        return user;
+    }
+
+    private static Film newFilm(String name) {
+        Film film = new Film();
+        film.setName(name);
+        film.setDescription("Film Description");
+        film.setReleaseDate(LocalDate.of(2022, 1, 1));
+        film.setDuration(120);
+        film.setMpa(new RatingMPA(1, "G"));
+        film.setRate(0);
+        return film;
+    }
+}
@@ -7,20 +7,26 @@ import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabas
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.annotation.DirtiesContext;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.CacheStats;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmPage;
 import ru.yandex.practicum.filmorate.model.Genre;
 import ru.yandex.practicum.filmorate.model.RatingMPA;
+import ru.yandex.practicum.filmorate.repository.like.LikeFilmsRepository;
 
 import java.time.LocalDate;
 import java.util.Collections;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static ru.yandex.practicum.filmorate.metrics.SqlStatementBudget.assertMaxStatements;
 
 @SpringBootTest
 @AutoConfigureTestDatabase
@@ -30,6 +36,9 @@ class FilmRepositoryTest {
     @Autowired
     private FilmRepository filmDbStorage;
 
+    @Autowired
+    private LikeFilmsRepository likeFilmsStorage;
+
     @Test
     public void testAddFilm() {
         Film filmToAdd = new Film();
@@ -95,6 +104,33 @@ class FilmRepositoryTest {
         assertEquals(film2.getRate(), secondFilm.getRate());
     }
 
+    @Test
+    public void testGetPage() {
+        for (int i = 1; i <= 3; i++) {
+            Film film = new Film();
+            film.setName("Film " + i);
+            film.setDescription("Description " + i);
+            film.setReleaseDate(LocalDate.of(2022, 1, i));
+            film.setDuration(120);
+            film.setMpa(new RatingMPA(1, "G"));
+            film.setRate(i);
+            filmDbStorage.add(film);
+        }
+
+        FilmPage firstPage = filmDbStorage.getPage(null, 2);
+
+        assertEquals(2, firstPage.getFilms().size());
+        assertEquals(1, firstPage.getFilms().get(0).getId());
+        assertEquals(2, firstPage.getFilms().get(1).getId());
+        assertEquals(2, firstPage.getNextCursor());
+
+        FilmPage lastPage = filmDbStorage.getPage(firstPage.getNextCursor(), 2);
+
+        assertEquals(1, lastPage.getFilms().size());
+        assertEquals(3, lastPage.getFilms().get(0).getId());
+        assertNull(lastPage.getNextCursor());
+    }
+
     @Test
     public void testUpdateFilm() {
         Film filmToAdd = new Film();
@@ -170,6 +206,169 @@ class FilmRepositoryTest {
         assertTrue(retrievedFilm.getGenres().contains(genre));
     }
 
+    @Test
+    public void testGetFilmsByIds() {
+        Genre genre = new Genre(2, "Драма");
+
+        for (int i = 1; i <= 3; i++) {
+            Film film = Film.builder()
+                    .name("Film " + i)
+                    .description("Description " + i)
+                    .releaseDate(LocalDate.of(2022, 1, i))
+                    .duration(120)
+                    .mpa(new RatingMPA(2, "PG"))
+                    .rate(i)
+                    .genres(new LinkedHashSet<>(Collections.singletonList(genre)))
+                    .build();
+            filmDbStorage.add(film);
+        }
+
+        List<Film> films = filmDbStorage.getByIds(List.of(3, 100, 1));
+
+        assertEquals(2, films.size());
+        assertEquals(3, films.get(0).getId());
+        assertEquals(1, films.get(1).getId());
+        assertEquals(new RatingMPA(2, "PG"), films.get(0).getMpa());
+        assertTrue(films.get(0).getGenres().contains(genre));
+        assertEquals(0, films.get(0).getLikesCount());
+    }
+
+    @Test
+    public void testGetPopularBreaksTiesById() {
+        int[] rates = {1, 3, 3};
+        for (int i = 0; i < rates.length; i++) {
+            Film film = new Film();
+            film.setName("Film " + i);
+            film.setDescription("Description " + i);
+            film.setReleaseDate(LocalDate.of(2022, 1, 1));
+            film.setDuration(120);
+            film.setMpa(new RatingMPA(1, "G"));
+            film.setRate(rates[i]);
+            filmDbStorage.add(film);
+        }
+
+        List<Film> popular = filmDbStorage.getPopular(2);
+
+        assertEquals(2, popular.size());
+        assertEquals(2, popular.get(0).getId());
+        assertEquals(3, popular.get(1).getId());
+    }
+
+    @Test
+    public void testGetPopularFromWarmCacheRunsNoQueries() {
+        int[] rates = {3, 2};
+        for (int i = 0; i < rates.length; i++) {
+            Film film = new Film();
+            film.setName("Film " + i);
+            film.setDescription("Description " + i);
+            film.setReleaseDate(LocalDate.of(2022, 1, 1));
+            film.setDuration(120);
+            film.setMpa(new RatingMPA(1, "G"));
+            film.setRate(rates[i]);
+            filmDbStorage.add(film);
+        }
+        filmDbStorage.getPopular(10);
+
+        List<Film> popular = assertMaxStatements(0, () -> filmDbStorage.getPopular(10));
+        assertEquals(List.of(1, 2), ids(popular));
+
+        likeFilmsStorage.plusRateForFilm(2);
+        likeFilmsStorage.plusRateForFilm(2);
+
+        popular = filmDbStorage.getPopular(10);
+        assertEquals(List.of(2, 1), ids(popular));
+        assertEquals(4, popular.get(0).getRate());
+    }
+
+    @Test
+    public void testGetPopularFilteredByGenreAndYear() {
+        int[] years = {2020, 2021, 2021};
+        int[] rates = {9, 1, 5};
+        int[] genres = {1, 1, 2};
+        for (int i = 0; i < years.length; i++) {
+            Film film = new Film();
+            film.setName("Film " + i);
+            film.setDescription("Description " + i);
+            film.setReleaseDate(LocalDate.of(years[i], 1, 1));
+            film.setDuration(120);
+            film.setMpa(new RatingMPA(1, "G"));
+            film.setRate(rates[i]);
+            film.setGenres(new LinkedHashSet<>(List.of(new Genre(genres[i], null))));
+            filmDbStorage.add(film);
+        }
+
+        assertEquals(List.of(1, 2), ids(filmDbStorage.getPopular(10, 1, null)));
+        assertEquals(List.of(3, 2), ids(filmDbStorage.getPopular(10, null, 2021)));
+        assertEquals(List.of(2), ids(filmDbStorage.getPopular(10, 1, 2021)));
+        assertTrue(filmDbStorage.getPopular(10, 3, null).isEmpty());
+
+        Film updated = filmDbStorage.getById(3);
+        updated.setGenres(new LinkedHashSet<>(List.of(new Genre(1, null))));
+        filmDbStorage.update(updated);
+
+        assertEquals(List.of(3, 2), ids(filmDbStorage.getPopular(10, 1, 2021)));
+    }
+
+    @Test
+    public void testSearchRanksExactAndPartialMatches() {
+        String[][] texts = {
+                {"Матрица", "Фильм про хакеров"},
+                {"The Matrix Reloaded", "Sequel to the Matrix"},
+                {"Ёлки", "Новогодняя комедия, почти как Матрица"}
+        };
+        for (String[] text : texts) {
+            Film film = new Film();
+            film.setName(text[0]);
+            film.setDescription(text[1]);
+            film.setReleaseDate(LocalDate.of(2022, 1, 1));
+            film.setDuration(120);
+            film.setMpa(new RatingMPA(1, "G"));
+            filmDbStorage.add(film);
+        }
+
+        assertEquals(List.of(1, 3), ids(filmDbStorage.search("матрица", 0, 10).getFilms()));
+        assertEquals(List.of(1, 3), ids(filmDbStorage.search("атриц", 0, 10).getFilms()));
+        assertEquals(List.of(2), ids(filmDbStorage.search("MATRIX", 0, 10).getFilms()));
+        assertEquals(List.of(3), ids(filmDbStorage.search("елки", 0, 10).getFilms()));
+
+        FilmPage firstPage = filmDbStorage.search("матрица", 0, 1);
+        assertEquals(List.of(1), ids(firstPage.getFilms()));
+        assertEquals(1, firstPage.getNextCursor());
+        assertNull(filmDbStorage.search("матрица", 1, 1).getNextCursor());
+
+        FilmPage farPage = filmDbStorage.search("матрица", Integer.MAX_VALUE - 50, 100);
+        assertTrue(farPage.getFilms().isEmpty());
+        assertNull(farPage.getNextCursor());
+        assertEquals(List.of(3), ids(filmDbStorage.search("матрица", 1, Integer.MAX_VALUE).getFilms()));
+
+        filmDbStorage.remove(1);
+        assertEquals(List.of(3), ids(filmDbStorage.search("матрица", 0, 10).getFilms()));
+    }
+
+    @Test
+    public void testGetByIdIsCachedAndInvalidatedOnUpdate() {
+        Film film = new Film();
+        film.setName("Film Name");
+        film.setDescription("Film Description");
+        film.setReleaseDate(LocalDate.of(2022, 1, 1));
+        film.setDuration(120);
+        film.setMpa(new RatingMPA(1, "G"));
+        film.setRate(5);
+        Film addedFilm = filmDbStorage.add(film);
+
+        filmDbStorage.getById(addedFilm.getId()).setName("Changed by caller");
+        assertEquals("Film Name", filmDbStorage.getById(addedFilm.getId()).getName());
+
+        addedFilm.setName("Updated Name");
+        filmDbStorage.update(addedFilm);
+        assertEquals("Updated Name", filmDbStorage.getById(addedFilm.getId()).getName());
+
+        CacheStats stats = filmDbStorage.getCacheStats();
+        assertEquals(1, stats.getHits());
+        assertEquals(2, stats.getMisses());
+        assertEquals(1, stats.getSize());
+    }
+
     @Test
     public void testRemoveFilm() {
         Film filmToAdd = new Film();
@@ -258,7 +457,8 @@ class FilmRepositoryTest {
 
         assertFalse(filmDbStorage.isExistGenreFilm(existingFilmId, nonExistentGenreId));
     }
-}
-
-
 
+    private static List<Integer> ids(List<Film> films) {
+        return films.stream().map(Film::getId).collect(Collectors.toList());
+    }
+}
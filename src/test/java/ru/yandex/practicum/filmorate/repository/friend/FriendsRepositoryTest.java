@@ -13,6 +13,7 @@ import ru.yandex.practicum.filmorate.repository.user.UserRepository;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -87,4 +88,57 @@ class FriendsRepositoryTest {
         List<User> commonFriends = friendsStorageDb.getCommonFriends(1, 2);
         Assertions.assertEquals(1, commonFriends.size());
     }
+
+    @Test
+    void removedUserDisappearsFromFriendLists() {
+        friendsStorageDb.addFriend(1, 2);
+        friendsStorageDb.addFriend(1, 3);
+        friendsStorageDb.addFriend(3, 2);
+
+        userDbStorage.remove(2);
+
+        List<User> friends = friendsStorageDb.getFriendsList(1);
+        Assertions.assertEquals(List.of(3), friends.stream().map(User::getId).collect(Collectors.toList()));
+        Assertions.assertTrue(friendsStorageDb.getFriendsList(3).isEmpty());
+        Assertions.assertFalse(friendsStorageDb.areFriends(1, 2));
+    }
+
+    @Test
+    void getFriendSuggestionsRanksByMutualFriends() {
+        User user4 = new User();
+        user4.setEmail("user4@example.com");
+        user4.setLogin("user4");
+        user4.setName("Name 4");
+        user4.setBirthday(LocalDate.of(1992, 1, 10));
+        userDbStorage.add(user4);
+
+        friendsStorageDb.addFriend(1, 2);
+        friendsStorageDb.addFriend(1, 3);
+        friendsStorageDb.addFriend(2, 4);
+        friendsStorageDb.addFriend(3, 4);
+        friendsStorageDb.addFriend(2, 1);
+
+        List<User> suggestions = friendsStorageDb.getFriendSuggestions(1, 10);
+        Assertions.assertEquals(List.of(4), suggestions.stream().map(User::getId).collect(Collectors.toList()));
+        Assertions.assertTrue(friendsStorageDb.getFriendSuggestions(4, 10).isEmpty());
+    }
+
+    @Test
+    void getFriendSuggestionsSkipsUsersWhoAlreadyAddedUser() {
+        User user4 = new User();
+        user4.setEmail("user4@example.com");
+        user4.setLogin("user4");
+        user4.setName("Name 4");
+        user4.setBirthday(LocalDate.of(1992, 1, 10));
+        userDbStorage.add(user4);
+
+        friendsStorageDb.addFriend(1, 2);
+        friendsStorageDb.addFriend(2, 3);
+        friendsStorageDb.addFriend(2, 4);
+        friendsStorageDb.addFriend(3, 1);
+
+        Assertions.assertTrue(friendsStorageDb.areFriends(1, 3));
+        List<User> suggestions = friendsStorageDb.getFriendSuggestions(1, 10);
+        Assertions.assertEquals(List.of(4), suggestions.stream().map(User::getId).collect(Collectors.toList()));
+    }
 }
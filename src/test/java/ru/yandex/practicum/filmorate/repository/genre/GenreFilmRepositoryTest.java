@@ -5,6 +5,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.annotation.DirtiesContext;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.Genre;
@@ -20,6 +21,7 @@ import java.util.Set;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @SpringBootTest
@@ -33,6 +35,9 @@ class GenreFilmRepositoryTest {
     @Autowired
     private GenreFilmRepository genreDbStorage;
 
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     @Test
     public void testGetAllGenres() {
         List<Genre> genres = genreDbStorage.getAll();
@@ -73,6 +78,31 @@ class GenreFilmRepositoryTest {
         assertEquals(expectedGenres, actualGenres);
     }
 
+    @Test
+    public void testSaveForFilmAppliesDiff() {
+        Film filmToAdd = Film.builder()
+                .name("Film Name")
+                .description("Film Description")
+                .releaseDate(LocalDate.of(2022, 1, 1))
+                .duration(120)
+                .mpa(new RatingMPA(1, "G"))
+                .rate(5)
+                .genres(new LinkedHashSet<>(List.of(new Genre(2, null), new Genre(1, null))))
+                .build();
+
+        Film addedFilm = filmDbStorage.add(filmToAdd);
+
+        assertEquals(new LinkedHashSet<>(List.of(new Genre(1, "Комедия"), new Genre(2, "Драма"))),
+                addedFilm.getGenres());
+
+        Set<Genre> savedGenres = genreDbStorage.saveForFilm(addedFilm.getId(),
+                List.of(new Genre(2, null), new Genre(3, null)));
+
+        Set<Genre> expectedGenres = new LinkedHashSet<>(List.of(new Genre(2, "Драма"), new Genre(3, "Мультфильм")));
+        assertEquals(expectedGenres, savedGenres);
+        assertEquals(expectedGenres, genreDbStorage.getForFilm(addedFilm.getId()));
+    }
+
     @Test
     public void testIsGenreExist() {
         int existingGenreId = 1;
@@ -81,4 +111,37 @@ class GenreFilmRepositoryTest {
         assertTrue(genreDbStorage.isExist(existingGenreId));
         assertFalse(genreDbStorage.isExist(nonExistentGenreId));
     }
+
+    @Test
+    public void testReloadPicksUpNewGenres() {
+        assertSame(genreDbStorage.getById(1), genreDbStorage.getById(1));
+
+        jdbcTemplate.update("INSERT INTO genre (id_genre, name_genre) VALUES (7, 'Мюзикл')");
+        assertFalse(genreDbStorage.isExist(7));
+
+        genreDbStorage.reload();
+
+        assertEquals(new Genre(7, "Мюзикл"), genreDbStorage.getById(7));
+        assertEquals(7, genreDbStorage.getAll().size());
+    }
+
+    @Test
+    public void testReloadRefreshesCachedFilms() {
+        Film filmToAdd = Film.builder()
+                .name("Film Name")
+                .description("Film Description")
+                .releaseDate(LocalDate.of(2022, 1, 1))
+                .duration(120)
+                .mpa(new RatingMPA(1, "G"))
+                .rate(5)
+                .genres(new LinkedHashSet<>(List.of(new Genre(1, null))))
+                .build();
+        int filmId = filmDbStorage.add(filmToAdd).getId();
+        assertEquals(Set.of(new Genre(1, "Комедия")), filmDbStorage.getById(filmId).getGenres());
+
+        jdbcTemplate.update("UPDATE genre SET name_genre = 'Комедии' WHERE id_genre = 1");
+        genreDbStorage.reload();
+
+        assertEquals(Set.of(new Genre(1, "Комедии")), filmDbStorage.getById(filmId).getGenres());
+    }
 }
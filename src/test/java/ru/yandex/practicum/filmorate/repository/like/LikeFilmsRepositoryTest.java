@@ -6,6 +6,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.annotation.DirtiesContext;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.RatingMPA;
@@ -14,8 +15,14 @@ import ru.yandex.practicum.filmorate.repository.film.FilmRepository;
 import ru.yandex.practicum.filmorate.repository.user.UserRepository;
 
 import java.time.LocalDate;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @SpringBootTest
 @AutoConfigureTestDatabase
@@ -31,6 +38,18 @@ class LikeFilmsRepositoryTest {
     @Autowired
     private UserRepository userDbStorage;
 
+    @Autowired
+    private LikeCounter likeCounter;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private LikeMatrix likeMatrix;
+
+    @Autowired
+    private LikeFilter likeFilter;
+
     @BeforeEach
     public void setUp() {
         Film filmToAdd = new Film();
@@ -97,4 +116,162 @@ class LikeFilmsRepositoryTest {
         int likeCount = likeFilmsStorageDb.getLikeCount(filmId);
         assertEquals(0, likeCount);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testIsExistLikeConsultsFilterBeforeTable() {
+        int filmId = 1;
+        int userId = 1;
+
+        assertFalse(likeFilter.mightContain(filmId, userId));
+        assertTrue(likeFilmsStorageDb.isExistLike(filmId, userId));
+
+        likeFilmsStorageDb.likeForFilm(filmId, userId);
+
+        assertTrue(likeFilter.mightContain(filmId, userId));
+        assertFalse(likeFilmsStorageDb.isExistLike(filmId, userId));
+
+        likeFilmsStorageDb.dislikeForFilm(filmId, userId);
+
+        assertTrue(likeFilmsStorageDb.isExistLike(filmId, userId));
+
+        likeFilter.rebuild();
+
+        assertFalse(likeFilter.mightContain(filmId, userId));
+    }
+
+    @Test
+    public void testRateIsWrittenBehind() {
+        int filmId = 1;
+        int userId = 1;
+
+        likeFilmsStorageDb.likeForFilm(filmId, userId);
+
+        assertEquals(6, filmDbStorage.getById(filmId).getRate());
+
+        likeCounter.flush();
+
+        assertEquals(0, likeCounter.getPending(filmId));
+        assertEquals(6, jdbcTemplate.queryForObject("SELECT rating FROM films WHERE id = ?", Integer.class, filmId));
+        assertEquals(6, filmDbStorage.getById(filmId).getRate());
+    }
+
+    @Test
+    public void testRateIsCountedOnceAcrossFlushes() {
+        int filmId = 1;
+
+        likeCounter.add(filmId, 3);
+        assertEquals(8, filmDbStorage.getAll().get(0).getRate());
+
+        likeCounter.flush();
+        likeCounter.add(filmId, -1);
+
+        assertEquals(7, filmDbStorage.getAll().get(0).getRate());
+
+        likeCounter.flush();
+
+        assertEquals(7, filmDbStorage.getAll().get(0).getRate());
+        assertEquals(7, jdbcTemplate.queryForObject("SELECT rating FROM films WHERE id = ?", Integer.class, filmId));
+    }
+
+    @Test
+    public void testDiscardKeepsLikesMadeAfterIt() {
+        int filmId = 1;
+
+        likeCounter.add(filmId, 2);
+        likeCounter.discard(filmId);
+        likeCounter.add(filmId, 1);
+        likeCounter.flush();
+
+        assertEquals(0, likeCounter.getPending(filmId));
+        assertEquals(6, jdbcTemplate.queryForObject("SELECT rating FROM films WHERE id = ?", Integer.class, filmId));
+    }
+
+    @Test
+    public void testExplicitRateReplacesPendingDelta() {
+        int filmId = 1;
+
+        likeCounter.add(filmId, 2);
+        Film film = filmDbStorage.getById(filmId);
+        film.setRate(10);
+        filmDbStorage.update(film);
+        likeCounter.flush();
+
+        assertEquals(10, jdbcTemplate.queryForObject("SELECT rating FROM films WHERE id = ?", Integer.class, filmId));
+    }
+
+    @Test
+    public void testLikesAfterExplicitRateAreKept() {
+        int filmId = 1;
+
+        likeCounter.add(filmId, 2);
+        Film film = filmDbStorage.getById(filmId);
+        film.setRate(10);
+        filmDbStorage.update(film);
+        likeCounter.add(filmId, 1);
+
+        assertEquals(11, filmDbStorage.getById(filmId).getRate());
+
+        likeCounter.flush();
+
+        assertEquals(0, likeCounter.getPending(filmId));
+        assertEquals(11, jdbcTemplate.queryForObject("SELECT rating FROM films WHERE id = ?", Integer.class, filmId));
+    }
+
+    @Test
+    public void testConcurrentLikesDuringFlushesAreCountedOnce() throws InterruptedException {
+        int filmId = 1;
+        int threads = 4;
+        int likesPerThread = 1000;
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++) {
+            executor.execute(() -> {
+                for (int i = 0; i < likesPerThread; i++) {
+                    likeCounter.add(filmId, 1);
+                }
+            });
+        }
+        executor.shutdown();
+        while (!executor.awaitTermination(10, TimeUnit.MILLISECONDS)) {
+            likeCounter.flush();
+            int rate = filmDbStorage.getAll().get(0).getRate();
+            assertTrue(rate >= 5 && rate <= 5 + threads * likesPerThread);
+        }
+        likeCounter.flush();
+
+        assertEquals(5 + threads * likesPerThread,
+                jdbcTemplate.queryForObject("SELECT rating FROM films WHERE id = ?", Integer.class, filmId));
+        assertEquals(5 + threads * likesPerThread, filmDbStorage.getAll().get(0).getRate());
+    }
+
+    @Test
+    public void testRecommendFilmsFromOverlappingUsers() {
+        for (int i = 2; i <= 3; i++) {
+            Film film = new Film();
+            film.setName("Film " + i);
+            film.setDescription("Description " + i);
+            film.setReleaseDate(LocalDate.of(2022, 1, 1));
+            film.setDuration(120);
+            film.setMpa(new RatingMPA(1, "G"));
+            filmDbStorage.add(film);
+
+            User user = new User();
+            user.setName("User " + i);
+            user.setEmail("user" + i + "@example.com");
+            user.setLogin("user" + i);
+            user.setBirthday(LocalDate.of(1990, 5, 15));
+            userDbStorage.add(user);
+        }
+
+        likeFilmsStorageDb.likeForFilm(1, 1);
+        likeFilmsStorageDb.likeForFilm(1, 2);
+        likeFilmsStorageDb.likeForFilm(2, 2);
+        likeFilmsStorageDb.likeForFilm(3, 3);
+
+        assertArrayEquals(new int[]{2}, likeMatrix.recommendFilms(1, 10));
+
+        likeFilmsStorageDb.dislikeForFilm(1, 2);
+
+        assertArrayEquals(new int[0], likeMatrix.recommendFilms(1, 10));
+    }
+}